@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Primary;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 
@@ -47,5 +48,20 @@ public class LocalStackS3Config {
                         .build())
                 .build();
     }
-}
 
+    @Bean
+    @Primary
+    public S3AsyncClient localStackS3AsyncClient() {
+        // LocalStack uses fixed test credentials
+        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create("test", "test");
+
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(localstackEndpoint))
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(true)  // Required for LocalStack
+                        .build())
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import com.crackersbazaar.dto.ManufacturerResponse;
 import com.crackersbazaar.dto.ManufacturerVerificationRequest;
 import com.crackersbazaar.entity.ManufacturerStatus;
 import com.crackersbazaar.service.ManufacturerService;
+import com.crackersbazaar.util.ConditionalGet;
 import com.crackersbazaar.util.SecurityUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -51,8 +53,13 @@ public class AdminController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, manufacturerService.getManufacturerListVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
@@ -66,8 +73,12 @@ public class AdminController {
     
     @GetMapping("/manufacturers/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DASHBOARD_ADMIN')")
-    public ResponseEntity<?> getManufacturerById(@PathVariable String id) {
+    public ResponseEntity<?> getManufacturerById(@PathVariable String id, WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, manufacturerService.getManufacturerVersion(id))) {
+                return null;
+            }
+            
             ManufacturerResponse response = manufacturerService.getManufacturerById(id);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -93,8 +104,13 @@ public class AdminController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, manufacturerService.getManufacturerListVersion())) {
+                return null;
+            }
+            
             ManufacturerStatus manufacturerStatus = ManufacturerStatus.valueOf(status.toUpperCase());
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
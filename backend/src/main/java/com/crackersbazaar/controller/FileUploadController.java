@@ -1,5 +1,6 @@
 package com.crackersbazaar.controller;
 
+import com.crackersbazaar.dto.ImageUploadResult;
 import com.crackersbazaar.service.FileUploadService;
 import com.crackersbazaar.service.S3StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -81,29 +83,22 @@ public class FileUploadController {
         try {
             if ("s3".equalsIgnoreCase(storageType)) {
                 // Upload to S3
-                List<String> s3Keys = s3StorageService.uploadImages(files, "products/" + productId);
+                List<ImageUploadResult> results = s3StorageService.uploadImages(files, "products/" + productId);
                 
-                // Convert S3 keys to proxy URLs
-                List<String> proxyUrls = s3Keys.stream()
-                        .map(key -> "/api/images?key=" + key)
-                        .collect(Collectors.toList());
-                
-                return ResponseEntity.ok(Map.of(
-                    "message", "Images uploaded to S3 successfully",
-                    "urls", proxyUrls,
-                    "s3Keys", s3Keys,
-                    "count", proxyUrls.size(),
-                    "storageType", "s3"
-                ));
+                Map<String, Object> response = uploadResponse(results, "Images uploaded to S3 successfully");
+                response.put("s3Keys", results.stream()
+                        .filter(ImageUploadResult::isSuccess)
+                        .map(ImageUploadResult::getS3Key)
+                        .collect(Collectors.toList()));
+                response.put("storageType", "s3");
+                return ResponseEntity.ok(response);
             } else {
                 // Upload locally
-                List<String> uploadedUrls = fileUploadService.uploadProductImages(files, productId);
-                return ResponseEntity.ok(Map.of(
-                    "message", "Images uploaded locally successfully",
-                    "urls", uploadedUrls,
-                    "count", uploadedUrls.size(),
-                    "storageType", "local"
-                ));
+                List<ImageUploadResult> results = fileUploadService.uploadProductImages(files, productId);
+                
+                Map<String, Object> response = uploadResponse(results, "Images uploaded locally successfully");
+                response.put("storageType", "local");
+                return ResponseEntity.ok(response);
             }
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -112,6 +107,24 @@ public class FileUploadController {
         }
     }
     
+    // URLs of the stored files plus one result per file, so a client can retry just the failed ones
+    private Map<String, Object> uploadResponse(List<ImageUploadResult> results, String successMessage) {
+        List<String> urls = results.stream()
+                .filter(ImageUploadResult::isSuccess)
+                .map(ImageUploadResult::getUrl)
+                .collect(Collectors.toList());
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("message", urls.size() == results.size()
+                ? successMessage
+                : "Uploaded " + urls.size() + " of " + results.size() + " images");
+        response.put("urls", urls);
+        response.put("count", urls.size());
+        response.put("failed", results.size() - urls.size());
+        response.put("results", results);
+        return response;
+    }
+    
     @PostMapping("/single-image")
     @PreAuthorize("hasRole('MANUFACTURER')")
     public ResponseEntity<?> uploadSingleImage(
@@ -1,12 +1,18 @@
 package com.crackersbazaar.controller;
 
+import com.crackersbazaar.service.ImageContent;
+import com.crackersbazaar.service.ImageVariantService;
 import com.crackersbazaar.service.S3StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.IOException;
 
@@ -18,28 +24,22 @@ public class ImageProxyController {
     @Autowired
     private S3StorageService s3StorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     /**
      * Proxy endpoint to serve images from S3
      * URL format: /api/images/products/{productId}/{filename}
      * Or: /api/images/temp/{filename}
+     * Every endpoint takes optional ?w=320&fmt=webp for a resized variant (fmt defaults to the original's)
      */
     @GetMapping("/**")
-    public ResponseEntity<byte[]> getImage(@RequestParam String key) {
-        try {
-            // Get image from S3
-            byte[] imageBytes = s3StorageService.getImage(key);
-
-            // Determine content type from file extension
-            String contentType = determineContentType(key);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setCacheControl("public, max-age=31536000"); // Cache for 1 year
-
-            return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Resource> getImage(
+            @RequestParam String key,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String fmt,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return serveImage(key, determineContentType(key), "public, max-age=31536000", w, fmt, requestHeaders); // Cache for 1 year
     }
 
     /**
@@ -47,23 +47,14 @@ public class ImageProxyController {
      * /api/images/proxy/{folder}/{filename}
      */
     @GetMapping("/proxy/{folder}/{filename}")
-    public ResponseEntity<byte[]> getImageByPath(
+    public ResponseEntity<Resource> getImageByPath(
             @PathVariable String folder,
-            @PathVariable String filename) {
-        try {
-            String s3Key = folder + "/" + filename;
-            byte[] imageBytes = s3StorageService.getImage(s3Key);
-
-            String contentType = determineContentType(filename);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setCacheControl("public, max-age=31536000");
-
-            return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.notFound().build();
-        }
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String fmt,
+            @RequestHeader HttpHeaders requestHeaders) {
+        String s3Key = folder + "/" + filename;
+        return serveImage(s3Key, determineContentType(filename), "public, max-age=31536000", w, fmt, requestHeaders);
     }
 
     /**
@@ -71,23 +62,14 @@ public class ImageProxyController {
      * /api/images/products/{productId}/{filename}
      */
     @GetMapping("/products/{productId}/{filename}")
-    public ResponseEntity<byte[]> getProductImage(
+    public ResponseEntity<Resource> getProductImage(
             @PathVariable String productId,
-            @PathVariable String filename) {
-        try {
-            String s3Key = "products/" + productId + "/" + filename;
-            byte[] imageBytes = s3StorageService.getImage(s3Key);
-
-            String contentType = determineContentType(filename);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setCacheControl("public, max-age=31536000");
-
-            return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.notFound().build();
-        }
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String fmt,
+            @RequestHeader HttpHeaders requestHeaders) {
+        String s3Key = "products/" + productId + "/" + filename;
+        return serveImage(s3Key, determineContentType(filename), "public, max-age=31536000", w, fmt, requestHeaders);
     }
 
     /**
@@ -95,23 +77,81 @@ public class ImageProxyController {
      * /api/images/temp/{filename}
      */
     @GetMapping("/temp/{filename}")
-    public ResponseEntity<byte[]> getTempImage(@PathVariable String filename) {
-        try {
-            String s3Key = "temp/" + filename;
-            byte[] imageBytes = s3StorageService.getImage(s3Key);
+    public ResponseEntity<Resource> getTempImage(
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String fmt,
+            @RequestHeader HttpHeaders requestHeaders) {
+        String s3Key = "temp/" + filename;
+        return serveImage(s3Key, determineContentType(filename), "public, max-age=3600", w, fmt, requestHeaders); // Cache for 1 hour (temp files)
+    }
 
-            String contentType = determineContentType(filename);
+    /**
+     * Stream an image to the response without buffering it. Range and If-None-Match are passed to S3
+     * on a cache miss; on a cached copy Spring answers them from the resource and ETag. The resource
+     * body is copied to the servlet output in small chunks, so heap use does not grow with image size.
+     * With a width (and optionally a format) the matching variant is served instead, generated on first use.
+     */
+    private ResponseEntity<Resource> serveImage(String s3Key, String contentType, String cacheControl,
+                                                Integer width, String format, HttpHeaders requestHeaders) {
+        try {
+            String range = requestHeaders.getFirst(HttpHeaders.RANGE);
+            String ifNoneMatch = requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH);
+            ImageContent image;
+            if (width == null && format == null) {
+                image = s3StorageService.openImage(s3Key, range, ifNoneMatch);
+            } else if (width == null) {
+                return ResponseEntity.badRequest().build();
+            } else {
+                String variantFormat = format != null ? format : imageVariantService.defaultFormat(s3Key);
+                image = imageVariantService.openVariant(s3Key, width, variantFormat, range, ifNoneMatch);
+                contentType = imageVariantService.getContentType(variantFormat);
+            }
+            releaseAfterResponse(image);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setCacheControl("public, max-age=3600"); // Cache for 1 hour (temp files)
-
-            return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
+            headers.setCacheControl(cacheControl);
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (image.getETag() != null) {
+                headers.setETag(image.getETag());
+            }
+            if (image.isStreamed()) {
+                // A one-shot stream has no length of its own; S3 told us how many bytes follow
+                headers.setContentLength(image.getContentLength());
+            }
+            if (image.isPartial()) {
+                headers.set(HttpHeaders.CONTENT_RANGE, image.getContentRange());
+                return new ResponseEntity<>(image.getResource(), headers, HttpStatus.PARTIAL_CONTENT);
+            }
+            return new ResponseEntity<>(image.getResource(), headers, HttpStatus.OK);
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+                if (e.awsErrorDetails() != null && e.awsErrorDetails().sdkHttpResponse() != null) {
+                    e.awsErrorDetails().sdkHttpResponse().firstMatchingHeader(HttpHeaders.ETAG).ifPresent(notModified::eTag);
+                }
+                return notModified.build();
+            }
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IOException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // The body is written after the handler returns; a disk-cached image keeps its file open until then
+    private void releaseAfterResponse(ImageContent image) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback("imageContent", () -> {
+            try {
+                image.close();
+            } catch (IOException e) {
+                System.err.println("Failed to release cached image: " + e.getMessage());
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+
     /**
      * Determine content type from file extension
      */
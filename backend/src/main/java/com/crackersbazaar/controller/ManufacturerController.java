@@ -2,11 +2,13 @@ package com.crackersbazaar.controller;
 
 import com.crackersbazaar.dto.ManufacturerResponse;
 import com.crackersbazaar.service.ManufacturerService;
+import com.crackersbazaar.util.ConditionalGet;
 import com.crackersbazaar.util.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -27,7 +29,7 @@ public class ManufacturerController {
      */
     @GetMapping("/profile")
     @PreAuthorize("hasRole('MANUFACTURER')")
-    public ResponseEntity<?> getMyProfile() {
+    public ResponseEntity<?> getMyProfile(WebRequest webRequest) {
         try {
             // Get user ID directly from JWT token
             String userId = securityUtils.getCurrentUserId();
@@ -36,6 +38,10 @@ public class ManufacturerController {
                 return ResponseEntity.badRequest().body(Map.of("error", "User ID not found in token"));
             }
             
+            if (ConditionalGet.isNotModified(webRequest, manufacturerService.getManufacturerVersionByUserId(userId))) {
+                return null;
+            }
+            
             ManufacturerResponse manufacturer = manufacturerService.getManufacturerByUserId(userId);
             return ResponseEntity.ok(manufacturer);
         } catch (Exception e) {
@@ -48,8 +54,12 @@ public class ManufacturerController {
      */
     @GetMapping("/by-user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DASHBOARD_ADMIN')")
-    public ResponseEntity<?> getManufacturerByUserId(@PathVariable String userId) {
+    public ResponseEntity<?> getManufacturerByUserId(@PathVariable String userId, WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, manufacturerService.getManufacturerVersionByUserId(userId))) {
+                return null;
+            }
+            
             ManufacturerResponse manufacturer = manufacturerService.getManufacturerByUserId(userId);
             return ResponseEntity.ok(manufacturer);
         } catch (Exception e) {
@@ -0,0 +1,82 @@
+package com.crackersbazaar.controller;
+
+import com.crackersbazaar.service.ImageCache;
+import com.crackersbazaar.service.ImageProcessingExecutor;
+import com.crackersbazaar.service.ImageVariantService;
+import com.crackersbazaar.service.OptimisticLockRetry;
+import com.crackersbazaar.service.OrderArchive;
+import com.crackersbazaar.service.OrderPlacementPipeline;
+import com.crackersbazaar.service.ProductCache;
+import com.crackersbazaar.service.StockReservationLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:5173"})
+public class MetricsController {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private OptimisticLockRetry optimisticLockRetry;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private ImageCache imageCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageProcessingExecutor imageProcessingExecutor;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DASHBOARD_ADMIN')")
+    public ResponseEntity<?> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("productCache", productCache.getStats());
+        metrics.put("optimisticLocking", optimisticLockRetry.getStats());
+        metrics.put("stockLedger", stockReservationLedger.getStats());
+        metrics.put("orderPipeline", orderPlacementPipeline.getStats());
+        metrics.put("orderArchive", orderArchive.getStats());
+        metrics.put("imageCache", imageCache.getStats());
+        metrics.put("imageVariants", imageVariantService.getStats());
+        metrics.put("imageUploads", imageProcessingExecutor.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/product-cache")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DASHBOARD_ADMIN')")
+    public ResponseEntity<?> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.getStats());
+    }
+
+    @DeleteMapping("/product-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> clearProductCache() {
+        productCache.clear();
+        return ResponseEntity.ok(Map.of("message", "Product cache cleared"));
+    }
+
+    @DeleteMapping("/image-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> clearImageCache() {
+        imageCache.clear();
+        return ResponseEntity.ok(Map.of("message", "Image cache cleared"));
+    }
+}
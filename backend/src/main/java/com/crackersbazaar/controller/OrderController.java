@@ -2,22 +2,30 @@ package com.crackersbazaar.controller;
 
 import com.crackersbazaar.dto.*;
 import com.crackersbazaar.entity.OrderStatus;
+import com.crackersbazaar.service.OrderPlacementPipeline;
 import com.crackersbazaar.service.OrderService;
+import com.crackersbazaar.service.PendingOrder;
 import com.crackersbazaar.util.SecurityUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -27,6 +35,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+    
     @Autowired
     private SecurityUtils securityUtils;
     
@@ -34,7 +45,61 @@ public class OrderController {
     
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest request) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest request,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         @RequestParam(defaultValue = "false") boolean async) {
+        try {
+            String userId = securityUtils.getCurrentUserId();
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "User not authenticated"));
+            }
+            if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 100)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Idempotency-Key must be 1 to 100 characters"));
+            }
+            
+            // Accept-then-process: the order is placed by a background worker; poll GET /api/orders/{id}
+            if (async && orderPlacementPipeline.isEnabled()) {
+                PendingOrder pending = orderPlacementPipeline.submit(request, userId, idempotencyKey);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .location(URI.create("/api/orders/" + pending.getOrderId()))
+                        .body(pending);
+            }
+            
+            if (idempotencyKey != null) {
+                Optional<OrderResponse> existing = orderService.getOrderByIdempotencyKey(userId, idempotencyKey);
+                if (existing.isPresent()) {
+                    return ResponseEntity.ok(existing.get());
+                }
+            }
+            
+            try {
+                OrderResponse response = orderService.createOrder(request, userId,
+                        java.util.UUID.randomUUID().toString(), idempotencyKey);
+                return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent retry with the same key committed first: answer with its order
+                if (idempotencyKey != null && OrderService.isIdempotencyKeyConflict(e)) {
+                    Optional<OrderResponse> existing = orderService.getOrderByIdempotencyKey(userId, idempotencyKey);
+                    if (existing.isPresent()) {
+                        return ResponseEntity.ok(existing.get());
+                    }
+                }
+                throw e;
+            }
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/reservations")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> reserveStock(@Valid @RequestBody StockReservationRequest request) {
         try {
             String userId = securityUtils.getCurrentUserId();
             if (userId == null) {
@@ -42,8 +107,18 @@ public class OrderController {
                         .body(Map.of("error", "User not authenticated"));
             }
             
-            OrderResponse response = orderService.createOrder(request, userId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderService.reserveStockForCheckout(request, userId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/reservations/{reservationId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> releaseStockReservation(@PathVariable String reservationId) {
+        try {
+            orderService.releaseStockReservation(reservationId, securityUtils.getCurrentUserId());
+            return ResponseEntity.ok(Map.of("message", "Stock reservation released"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -53,6 +128,22 @@ public class OrderController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getOrderById(@PathVariable String id) {
         try {
+            // Orders still in the async pipeline are reported by status until they are placed
+            PendingOrder pending = orderPlacementPipeline.getPending(id);
+            if (pending != null && pending.getStatus() != PendingOrder.Status.COMPLETED) {
+                if (!canViewPendingOrder(pending)) {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                            .body(Map.of("error", "You don't have permission to view this order"));
+                }
+                return pending.getStatus() == PendingOrder.Status.FAILED
+                        ? ResponseEntity.badRequest().body(pending)
+                        : ResponseEntity.status(HttpStatus.ACCEPTED).body(pending);
+            }
+            if (pending != null) {
+                // The order for this key may have been placed under a concurrent request's id
+                id = pending.awaitResult().join().getId();
+            }
+            
             OrderResponse response = orderService.getOrderById(id);
             
             // Check if user has permission to view this order
@@ -72,6 +163,33 @@ public class OrderController {
         }
     }
     
+    /**
+     * Long-poll for the outcome of an async order: completes as soon as the order is placed or
+     * rejected, or with the pending status (202) when {@code timeoutSeconds} pass first.
+     */
+    @GetMapping("/{id}/result")
+    @PreAuthorize("isAuthenticated()")
+    public DeferredResult<ResponseEntity<?>> awaitOrderResult(@PathVariable String id,
+                                                             @RequestParam(defaultValue = "30") long timeoutSeconds) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(Math.min(Math.max(timeoutSeconds, 1), 60) * 1000);
+        PendingOrder pending = orderPlacementPipeline.getPending(id);
+        if (pending == null || pending.getStatus() == PendingOrder.Status.COMPLETED) {
+            result.setResult(getOrderById(id));
+            return result;
+        }
+        if (!canViewPendingOrder(pending)) {
+            result.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "You don't have permission to view this order")));
+            return result;
+        }
+        
+        result.onTimeout(() -> result.setResult(ResponseEntity.status(HttpStatus.ACCEPTED).body(pending)));
+        pending.awaitResult().whenComplete((order, error) -> result.setResult(error == null
+                ? ResponseEntity.ok(order)
+                : ResponseEntity.badRequest().body(pending)));
+        return result;
+    }
+    
     @GetMapping("/number/{orderNumber}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getOrderByOrderNumber(@PathVariable String orderNumber) {
@@ -120,7 +238,8 @@ public class OrderController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
         try {
             String userId = securityUtils.getCurrentUserId();
             if (userId == null) {
@@ -128,6 +247,12 @@ public class OrderController {
                         .body(Map.of("error", "User not authenticated"));
             }
             
+            // Keyset mode: send an empty cursor for the first page, then each response's nextCursor
+            if (cursor != null) {
+                int pageSize = Math.max(1, Math.min(size, 100));
+                return ResponseEntity.ok(orderService.getOrdersByUserIdAfter(userId, cursor, pageSize));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
@@ -237,6 +362,28 @@ public class OrderController {
         }
     }
     
+    // Move many orders to one status, e.g. a whole dispatch to SHIPPED; each order gets its own result.
+    // Manufacturers may only move orders in their own inbox
+    @PutMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DASHBOARD_ADMIN', 'MANUFACTURER')")
+    public ResponseEntity<?> updateOrderStatuses(@Valid @RequestBody BulkOrderStatusUpdateRequest request) {
+        try {
+            String manufacturerId = null;
+            if (securityUtils.hasRole("MANUFACTURER")) {
+                manufacturerId = securityUtils.getCurrentManufacturerId();
+                if (manufacturerId == null) {
+                    return ResponseEntity.badRequest()
+                            .body(Map.of("error", "Manufacturer profile not found"));
+                }
+            }
+            
+            BulkOrderStatusUpdateResponse response = orderService.updateOrderStatuses(request, manufacturerId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @PutMapping("/{id}/cancel")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> cancelOrder(
@@ -330,5 +477,26 @@ public class OrderController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    @GetMapping("/stats/daily")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DASHBOARD_ADMIN')")
+    public ResponseEntity<?> getDailyOrderStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            if (to.isBefore(from) || from.plusDays(366).isBefore(to)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Date range must be between 1 and 366 days"));
+            }
+            return ResponseEntity.ok(orderService.getDailyOrderTotals(from, to));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    private boolean canViewPendingOrder(PendingOrder pending) {
+        String currentUserRole = securityUtils.getCurrentUserRole();
+        return pending.getUserId().equals(securityUtils.getCurrentUserId()) ||
+                "ADMIN".equals(currentUserRole) || "DASHBOARD_ADMIN".equals(currentUserRole);
+    }
 }
 
@@ -1,10 +1,18 @@
 package com.crackersbazaar.controller;
 
+import com.crackersbazaar.dto.FacetedSearchResponse;
+import com.crackersbazaar.dto.ProductBatchRequest;
+import com.crackersbazaar.dto.ProductCardResponse;
 import com.crackersbazaar.dto.ProductRequest;
 import com.crackersbazaar.dto.ProductResponse;
 import com.crackersbazaar.entity.Manufacturer;
 import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.service.ProductExportService;
+import com.crackersbazaar.service.ProductImportJob;
+import com.crackersbazaar.service.ProductImportService;
+import com.crackersbazaar.service.ProductSearchIndex;
 import com.crackersbazaar.service.ProductService;
+import com.crackersbazaar.util.ConditionalGet;
 import com.crackersbazaar.util.SecurityUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,14 +20,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/products")
@@ -29,12 +44,21 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductExportService productExportService;
+    
+    @Autowired
+    private ProductImportService productImportService;
+    
     @Autowired
     private ManufacturerRepository manufacturerRepository;
     
     @Autowired
     private SecurityUtils securityUtils;
     
+    // Keyset pages are capped so one request cannot pull an unbounded slice of the catalog
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
     // Product CRUD Operations
     
     @PostMapping
@@ -56,8 +80,12 @@ public class ProductController {
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable String id) {
+    public ResponseEntity<?> getProductById(@PathVariable String id, WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getProductVersion(id))) {
+                return null;
+            }
+            
             ProductResponse response = productService.getProductById(id);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -85,17 +113,54 @@ public class ProductController {
         }
     }
     
+    // Resolve many products (e.g. a cart) in one call; ids that don't exist are listed under "missing"
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@Valid @RequestBody ProductBatchRequest request) {
+        try {
+            Map<String, ProductResponse> products = productService.getProductsByIds(request.getIds());
+            List<String> missing = request.getIds().stream()
+                    .filter(id -> !products.containsKey(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("products", products);
+            response.put("missing", missing);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<?> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            if (cursor != null) {
+                if (isCardView(view)) {
+                    return ResponseEntity.ok(productService.getProductCardsAfter(null, null, null, null, cursor, cursorPageSize(size)));
+                }
+                return ResponseEntity.ok(productService.getProductsAfter(null, null, null, null, cursor, cursorPageSize(size)));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, null, null, null, null, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getAllProducts(pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -133,12 +198,30 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            if (cursor != null) {
+                if (isCardView(view)) {
+                    return ResponseEntity.ok(productService.getProductCardsAfter(null, null, manufacturerId, null, cursor, cursorPageSize(size)));
+                }
+                return ResponseEntity.ok(productService.getProductsAfter(null, null, manufacturerId, null, cursor, cursorPageSize(size)));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(manufacturerId, null, null, null, null, null, null, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getProductsByManufacturer(manufacturerId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -152,12 +235,30 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            if (cursor != null) {
+                if (isCardView(view)) {
+                    return ResponseEntity.ok(productService.getProductCardsAfter(null, null, manufacturerId, true, cursor, cursorPageSize(size)));
+                }
+                return ResponseEntity.ok(productService.getProductsAfter(null, null, manufacturerId, true, cursor, cursorPageSize(size)));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(manufacturerId, null, null, null, null, null, true, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getActiveProductsByManufacturer(manufacturerId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -173,12 +274,30 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            if (cursor != null) {
+                if (isCardView(view)) {
+                    return ResponseEntity.ok(productService.getProductCardsAfter(category, null, null, true, cursor, cursorPageSize(size)));
+                }
+                return ResponseEntity.ok(productService.getProductsAfter(category, null, null, true, cursor, cursorPageSize(size)));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, category, null, null, null, null, true, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getProductsByCategory(category, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -192,12 +311,22 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, subcategory, null, null, null, true, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getProductsBySubcategory(subcategory, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -214,12 +343,22 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "price") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, null, minPrice, maxPrice, true, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -234,13 +373,23 @@ public class ProductController {
             @RequestParam String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "relevance") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.searchProductCards(name, ProductSearchIndex.Scope.NAME, pageable));
+            }
+            
             Page<ProductResponse> products = productService.searchProductsByName(name, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -253,13 +402,23 @@ public class ProductController {
             @RequestParam String description,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "relevance") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.searchProductCards(description, ProductSearchIndex.Scope.DESCRIPTION, pageable));
+            }
+            
             Page<ProductResponse> products = productService.searchProductsByDescription(description, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -273,12 +432,30 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            if (cursor != null) {
+                if (isCardView(view)) {
+                    return ResponseEntity.ok(productService.getProductCardsAfter(null, brand, null, true, cursor, cursorPageSize(size)));
+                }
+                return ResponseEntity.ok(productService.getProductsAfter(null, brand, null, true, cursor, cursorPageSize(size)));
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, brand, null, null, true, null, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getProductsByBrand(brand, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -293,12 +470,22 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, null, null, null, true, true, null, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getFeaturedProducts(pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -313,12 +500,17 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "stockQuantity") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "full") String view) {
         try {
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, null, null, null, true, null, threshold, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getLowStockProducts(threshold, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -332,12 +524,17 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "full") String view) {
         try {
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(productService.getProductCards(null, null, null, null, null, null, true, null, 1, pageable));
+            }
+            
             Page<ProductResponse> products = productService.getOutOfStockProducts(pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -394,6 +591,76 @@ public class ProductController {
         }
     }
     
+    /**
+     * Stream the catalog as NDJSON (default) or CSV. Manufacturers always get their own products;
+     * admins get everything or one manufacturer's products via manufacturerId.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MANUFACTURER') or hasRole('ADMIN') or hasRole('DASHBOARD_ADMIN')")
+    public ResponseEntity<?> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String manufacturerId) {
+        try {
+            ProductExportService.Format exportFormat = ProductExportService.Format.from(format);
+            
+            String scope = manufacturerId;
+            if ("MANUFACTURER".equals(securityUtils.getCurrentUserRole())) {
+                scope = securityUtils.getCurrentManufacturerId();
+                if (scope == null) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Manufacturer profile not found. Please contact admin."));
+                }
+            }
+            
+            String exportScope = scope;
+            StreamingResponseBody body = out -> productExportService.exportProducts(exportScope, exportFormat, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Queue a bulk import (CSV with a header row, JSON array or NDJSON of product objects)
+     * into the current manufacturer's catalog. Poll the returned job for progress and row errors.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('MANUFACTURER')")
+    public ResponseEntity<?> importProducts(@RequestParam("file") MultipartFile file) {
+        try {
+            String manufacturerId = securityUtils.getCurrentManufacturerId();
+            
+            if (manufacturerId == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Manufacturer profile not found. Please contact admin."));
+            }
+            
+            ProductImportJob job = productImportService.startImport(file, manufacturerId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('MANUFACTURER')")
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        try {
+            ProductImportJob job = productImportService.getJob(jobId);
+            
+            if (!job.getManufacturerId().equals(securityUtils.getCurrentManufacturerId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "You don't have permission to view this import"));
+            }
+            
+            return ResponseEntity.ok(job);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/category/{category}/stats")
     public ResponseEntity<?> getCategoryProductStats(@PathVariable String category) {
         try {
@@ -418,17 +685,27 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "full") String view,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
             Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
             
+            if (isCardView(view)) {
+                return ResponseEntity.ok(searchProductCards(query, category, subcategory, brand, minPrice, maxPrice, pageable));
+            }
+            
             Page<ProductResponse> products;
             
-            // If query is provided, search by name or description
+            // If query is provided, run a full-text search over name, description, tags and brand
             if (query != null && !query.trim().isEmpty()) {
-                products = productService.searchProductsByName(query, pageable);
+                products = productService.searchProductsByText(query, pageable);
             }
             // If category is provided, filter by category
             else if (category != null && !category.trim().isEmpty()) {
@@ -456,4 +733,73 @@ public class ProductController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    // Search results plus category, subcategory, brand and price bucket counts in one round-trip
+    
+    @GetMapping("/facets")
+    public ResponseEntity<?> searchProductsWithFacets(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String subcategory,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest webRequest) {
+        try {
+            if (ConditionalGet.isNotModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            
+            Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+            Pageable pageable = PageRequest.of(page, size, sort);
+            
+            FacetedSearchResponse response = productService.searchProductsWithFacets(
+                    blankToNull(query), blankToNull(category), blankToNull(subcategory), blankToNull(brand),
+                    minPrice, maxPrice, pageable);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    private String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+    
+    /**
+     * Listing endpoints switch to keyset mode when a cursor parameter is present.
+     * Send an empty cursor for the first page, then the nextCursor of each response.
+     */
+    private int cursorPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+    
+    /**
+     * Listing endpoints return lightweight ProductCardResponse rows when called with view=card.
+     */
+    private boolean isCardView(String view) {
+        return "card".equalsIgnoreCase(view);
+    }
+    
+    // Card view of /search, applying the same filter precedence as the full view
+    private Page<ProductCardResponse> searchProductCards(String query, String category, String subcategory, String brand,
+                                                         BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        if (query != null && !query.trim().isEmpty()) {
+            return productService.searchProductCards(query, ProductSearchIndex.Scope.ALL, pageable);
+        } else if (category != null && !category.trim().isEmpty()) {
+            return productService.getProductCards(null, category, null, null, null, null, true, null, null, pageable);
+        } else if (subcategory != null && !subcategory.trim().isEmpty()) {
+            return productService.getProductCards(null, null, subcategory, null, null, null, true, null, null, pageable);
+        } else if (brand != null && !brand.trim().isEmpty()) {
+            return productService.getProductCards(null, null, null, brand, null, null, true, null, null, pageable);
+        } else if (minPrice != null && maxPrice != null) {
+            return productService.getProductCards(null, null, null, null, minPrice, maxPrice, true, null, null, pageable);
+        }
+        return productService.getProductCards(null, null, null, null, null, null, null, null, null, pageable);
+    }
 }
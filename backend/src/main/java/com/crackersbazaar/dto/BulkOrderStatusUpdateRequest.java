@@ -0,0 +1,54 @@
+package com.crackersbazaar.dto;
+
+import com.crackersbazaar.entity.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkOrderStatusUpdateRequest {
+    
+    @NotEmpty(message = "Order ids are required")
+    @Size(max = 500, message = "At most 500 orders can be updated at once")
+    private List<String> orderIds;
+    
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+    
+    @Size(max = 500, message = "Cancellation reason must not exceed 500 characters")
+    private String cancellationReason;
+    
+    // Constructors
+    public BulkOrderStatusUpdateRequest() {}
+    
+    public BulkOrderStatusUpdateRequest(List<String> orderIds, OrderStatus status) {
+        this.orderIds = orderIds;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public List<String> getOrderIds() {
+        return orderIds;
+    }
+    
+    public void setOrderIds(List<String> orderIds) {
+        this.orderIds = orderIds;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public String getCancellationReason() {
+        return cancellationReason;
+    }
+    
+    public void setCancellationReason(String cancellationReason) {
+        this.cancellationReason = cancellationReason;
+    }
+}
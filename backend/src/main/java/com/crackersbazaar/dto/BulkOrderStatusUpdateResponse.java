@@ -0,0 +1,101 @@
+package com.crackersbazaar.dto;
+
+import com.crackersbazaar.entity.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkOrderStatusUpdateResponse {
+    
+    private OrderStatus status;
+    private int updated;
+    private int failed;
+    private List<Result> results = new ArrayList<>();
+    
+    // Constructors
+    public BulkOrderStatusUpdateResponse() {}
+    
+    public BulkOrderStatusUpdateResponse(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public void addResult(Result result) {
+        results.add(result);
+        if (result.isSuccess()) {
+            updated++;
+        } else {
+            failed++;
+        }
+    }
+    
+    // Getters and Setters
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public int getUpdated() {
+        return updated;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public List<Result> getResults() {
+        return results;
+    }
+    
+    /**
+     * Outcome for one order id: its status before the update, or why it was left unchanged.
+     */
+    public static class Result {
+        private String orderId;
+        private String orderNumber;
+        private OrderStatus previousStatus;
+        private boolean success;
+        private String error;
+        
+        public static Result updated(String orderId, String orderNumber, OrderStatus previousStatus) {
+            Result result = new Result();
+            result.orderId = orderId;
+            result.orderNumber = orderNumber;
+            result.previousStatus = previousStatus;
+            result.success = true;
+            return result;
+        }
+        
+        public static Result failed(String orderId, String orderNumber, OrderStatus previousStatus, String error) {
+            Result result = new Result();
+            result.orderId = orderId;
+            result.orderNumber = orderNumber;
+            result.previousStatus = previousStatus;
+            result.error = error;
+            return result;
+        }
+        
+        // Getters
+        public String getOrderId() {
+            return orderId;
+        }
+        
+        public String getOrderNumber() {
+            return orderNumber;
+        }
+        
+        public OrderStatus getPreviousStatus() {
+            return previousStatus;
+        }
+        
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        public String getError() {
+            return error;
+        }
+    }
+}
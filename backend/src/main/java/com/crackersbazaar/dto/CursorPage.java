@@ -0,0 +1,103 @@
+package com.crackersbazaar.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) listing ordered by (createdAt desc, id desc).
+ * Carries an opaque cursor for the next page and no total count.
+ */
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    // Constructors
+    public CursorPage() {}
+
+    public CursorPage(List<T> content, String nextCursor, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+        this.size = size;
+    }
+
+    /**
+     * Build a page from a query that fetched up to {@code size + 1} rows;
+     * the extra row only signals that another page exists.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, LocalDateTime> createdAt,
+                                          Function<E, String> id,
+                                          Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            E last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encode(createdAt.apply(last), id.apply(last));
+        }
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), nextCursor, size);
+    }
+
+    public static String encode(LocalDateTime createdAt, String id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode}. Returns null for an empty cursor (first page).
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public record Position(LocalDateTime createdAt, String id) {}
+
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
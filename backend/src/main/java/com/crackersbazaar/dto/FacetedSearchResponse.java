@@ -0,0 +1,40 @@
+package com.crackersbazaar.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+/**
+ * A page of search results together with facet counts (dimension -> value -> count)
+ * over everything that matched the search.
+ */
+public class FacetedSearchResponse {
+
+    private Page<ProductResponse> products;
+    private Map<String, Map<String, Long>> facets;
+
+    // Constructors
+    public FacetedSearchResponse() {}
+
+    public FacetedSearchResponse(Page<ProductResponse> products, Map<String, Map<String, Long>> facets) {
+        this.products = products;
+        this.facets = facets;
+    }
+
+    // Getters and Setters
+    public Page<ProductResponse> getProducts() {
+        return products;
+    }
+
+    public void setProducts(Page<ProductResponse> products) {
+        this.products = products;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,63 @@
+package com.crackersbazaar.dto;
+
+/**
+ * Outcome for one file of a multi-file image upload: where it was stored, or why it was rejected.
+ */
+public class ImageUploadResult {
+    
+    private String originalName;
+    private String url;
+    private String s3Key;
+    private long originalSize;
+    private long storedSize;
+    private boolean success;
+    private String error;
+    
+    public static ImageUploadResult uploaded(String originalName, String url, String s3Key, long originalSize, long storedSize) {
+        ImageUploadResult result = new ImageUploadResult();
+        result.originalName = originalName;
+        result.url = url;
+        result.s3Key = s3Key;
+        result.originalSize = originalSize;
+        result.storedSize = storedSize;
+        result.success = true;
+        return result;
+    }
+    
+    public static ImageUploadResult failed(String originalName, long originalSize, String error) {
+        ImageUploadResult result = new ImageUploadResult();
+        result.originalName = originalName;
+        result.originalSize = originalSize;
+        result.error = error;
+        return result;
+    }
+    
+    // Getters
+    public String getOriginalName() {
+        return originalName;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public String getS3Key() {
+        return s3Key;
+    }
+    
+    public long getOriginalSize() {
+        return originalSize;
+    }
+    
+    public long getStoredSize() {
+        return storedSize;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public String getError() {
+        return error;
+    }
+}
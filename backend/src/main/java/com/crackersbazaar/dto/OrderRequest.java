@@ -37,6 +37,9 @@ public class OrderRequest {
     private BigDecimal shippingCost;
     private BigDecimal discount;
     
+    // Optional stock reservation taken at checkout (flash-sale mode)
+    private String reservationId;
+    
     // Constructors
     public OrderRequest() {}
     
@@ -176,5 +179,13 @@ public class OrderRequest {
     public void setDiscount(BigDecimal discount) {
         this.discount = discount;
     }
+    
+    public String getReservationId() {
+        return reservationId;
+    }
+    
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
 }
 
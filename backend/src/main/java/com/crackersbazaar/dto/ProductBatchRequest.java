@@ -0,0 +1,27 @@
+package com.crackersbazaar.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class ProductBatchRequest {
+    
+    @NotEmpty(message = "At least one product ID is required")
+    private List<String> ids;
+    
+    // Constructors
+    public ProductBatchRequest() {}
+    
+    public ProductBatchRequest(List<String> ids) {
+        this.ids = ids;
+    }
+    
+    // Getters and Setters
+    public List<String> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
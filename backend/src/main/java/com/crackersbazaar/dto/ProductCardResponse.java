@@ -0,0 +1,99 @@
+package com.crackersbazaar.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight product view for listing grids. Populated directly by a JPQL constructor
+ * expression, so only these columns are read; the first image is filled in afterwards.
+ */
+public class ProductCardResponse {
+    
+    private String id;
+    private String name;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private String imageUrl;
+    private String manufacturerId;
+    private String manufacturerName;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public ProductCardResponse() {}
+    
+    public ProductCardResponse(String id, String name, BigDecimal price, Integer stockQuantity,
+                               String manufacturerId, String manufacturerName, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.manufacturerId = manufacturerId;
+        this.manufacturerName = manufacturerName;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+    
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+    
+    public String getImageUrl() {
+        return imageUrl;
+    }
+    
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+    
+    public String getManufacturerId() {
+        return manufacturerId;
+    }
+    
+    public void setManufacturerId(String manufacturerId) {
+        this.manufacturerId = manufacturerId;
+    }
+    
+    public String getManufacturerName() {
+        return manufacturerName;
+    }
+    
+    public void setManufacturerName(String manufacturerName) {
+        this.manufacturerName = manufacturerName;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
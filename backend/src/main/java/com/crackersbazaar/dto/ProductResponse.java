@@ -5,6 +5,7 @@ import com.crackersbazaar.entity.Manufacturer;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProductResponse {
@@ -66,7 +67,7 @@ public class ProductResponse {
         this.warrantyPeriod = product.getWarrantyPeriod();
         this.returnPolicy = product.getReturnPolicy();
         this.shippingInfo = product.getShippingInfo();
-        this.imageUrls = product.getImageUrls();
+        this.imageUrls = product.getImageUrls() != null ? new ArrayList<>(product.getImageUrls()) : null;
         this.createdAt = product.getCreatedAt();
         this.updatedAt = product.getUpdatedAt();
         
@@ -0,0 +1,46 @@
+package com.crackersbazaar.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap version stamp of a resource or listing used for conditional GETs:
+ * the latest modification time plus a token (an id and row version, or a write counter).
+ */
+public class ResourceVersion {
+
+    private final LocalDateTime lastModified;
+    private final String token;
+
+    // Constructors
+    public ResourceVersion(LocalDateTime lastModified, String token) {
+        this.lastModified = lastModified;
+        this.token = token;
+    }
+
+    // Rows with an optimistic-lock version: the version changes on every write, even within one second
+    public ResourceVersion(LocalDateTime lastModified, String id, Long version) {
+        this(lastModified, id + ":v" + version);
+    }
+
+    // Variant for representations that embed data from a related versioned row (e.g. the manufacturer on a product)
+    public ResourceVersion(LocalDateTime lastModified, String id, Long version,
+                           LocalDateTime relatedModified, Long relatedVersion) {
+        this(latest(lastModified, relatedModified), id + ":v" + version + ":r" + relatedVersion);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    // Getters
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public String getToken() {
+        return token;
+    }
+}
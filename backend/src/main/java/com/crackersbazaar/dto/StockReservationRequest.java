@@ -0,0 +1,29 @@
+package com.crackersbazaar.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class StockReservationRequest {
+    
+    @NotEmpty(message = "Reservation items are required")
+    @Valid
+    private List<OrderItemRequest> items;
+    
+    // Constructors
+    public StockReservationRequest() {}
+    
+    public StockReservationRequest(List<OrderItemRequest> items) {
+        this.items = items;
+    }
+    
+    // Getters and Setters
+    public List<OrderItemRequest> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<OrderItemRequest> items) {
+        this.items = items;
+    }
+}
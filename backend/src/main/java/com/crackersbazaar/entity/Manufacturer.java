@@ -135,6 +135,11 @@ public class Manufacturer {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic lock; every write bumps it, so conditional GETs can tell same-second writes apart
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     // Constructors
     public Manufacturer() {}
     
@@ -391,4 +396,12 @@ public class Manufacturer {
     public void setUser(User user) {
         this.user = user;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,100 @@
+package com.crackersbazaar.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized manufacturer inbox row: one per (manufacturer, order) with that manufacturer's
+ * share of the order. Written with the order and kept in step with its status, so manufacturer
+ * order listings read a single narrow table instead of joining orders, items and products.
+ */
+@Entity
+@Table(name = "manufacturer_orders", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_manufacturer_orders_manufacturer_order", columnNames = {"manufacturer_id", "order_id"})
+})
+public class ManufacturerOrder {
+    
+    @Id
+    @Column(columnDefinition = "VARCHAR(36)")
+    private String id;
+    
+    @Column(name = "manufacturer_id", length = 36, nullable = false)
+    private String manufacturerId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private OrderStatus status;
+    
+    @Column(name = "manufacturer_subtotal", precision = 10, scale = 2, nullable = false)
+    private BigDecimal manufacturerSubtotal;
+    
+    // Copied from the order so listings sort without touching the orders table
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public ManufacturerOrder() {}
+    
+    public ManufacturerOrder(Order order, String manufacturerId, BigDecimal manufacturerSubtotal, LocalDateTime createdAt) {
+        this.order = order;
+        this.manufacturerId = manufacturerId;
+        this.status = order.getStatus();
+        this.manufacturerSubtotal = manufacturerSubtotal;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getManufacturerId() {
+        return manufacturerId;
+    }
+    
+    public void setManufacturerId(String manufacturerId) {
+        this.manufacturerId = manufacturerId;
+    }
+    
+    public Order getOrder() {
+        return order;
+    }
+    
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public BigDecimal getManufacturerSubtotal() {
+        return manufacturerSubtotal;
+    }
+    
+    public void setManufacturerSubtotal(BigDecimal manufacturerSubtotal) {
+        this.manufacturerSubtotal = manufacturerSubtotal;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
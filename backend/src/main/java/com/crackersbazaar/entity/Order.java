@@ -2,7 +2,6 @@ package com.crackersbazaar.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -11,7 +10,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_orders_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+})
 public class Order {
     
     @Id
@@ -95,6 +96,10 @@ public class Order {
     @Column(name = "notes", length = 1000)
     private String notes;
     
+    // Client-supplied (or generated) key that makes retried submissions return the same order
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+    
     @Column(name = "tracking_number", length = 100)
     private String trackingNumber;
     
@@ -113,7 +118,12 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
     
-    @CreationTimestamp
+    // Per-manufacturer inbox rows, inserted together with the order
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<ManufacturerOrder> manufacturerOrders = new ArrayList<>();
+    
+    // Set by OrderService before the rollups are written; the @PrePersist fallback only fills a missing value,
+    // where @CreationTimestamp would overwrite it at flush
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -121,6 +131,11 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic lock; null until first persisted, which also marks the entity as new for save()
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     // Constructors
     public Order() {}
     
@@ -142,6 +157,18 @@ public class Order {
         item.setOrder(null);
     }
     
+    public void addManufacturerOrder(ManufacturerOrder manufacturerOrder) {
+        manufacturerOrders.add(manufacturerOrder);
+        manufacturerOrder.setOrder(this);
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -343,6 +370,14 @@ public class Order {
         this.notes = notes;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     public String getTrackingNumber() {
         return trackingNumber;
     }
@@ -391,6 +426,14 @@ public class Order {
         this.orderItems = orderItems;
     }
     
+    public List<ManufacturerOrder> getManufacturerOrders() {
+        return manufacturerOrders;
+    }
+    
+    public void setManufacturerOrders(List<ManufacturerOrder> manufacturerOrders) {
+        this.manufacturerOrders = manufacturerOrders;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -406,5 +449,13 @@ public class Order {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
 
@@ -2,6 +2,7 @@ package com.crackersbazaar.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -95,6 +96,7 @@ public class Product {
     private Manufacturer manufacturer;
     
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
     private List<String> imageUrls;
@@ -107,6 +109,11 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Optimistic lock; null until first persisted, which also marks the entity as new for save()
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     // Constructors
     public Product() {}
     
@@ -336,4 +343,12 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,43 @@
+package com.crackersbazaar.repository;
+
+import com.crackersbazaar.entity.ManufacturerOrder;
+import com.crackersbazaar.entity.OrderStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ManufacturerOrderRepository extends JpaRepository<ManufacturerOrder, String> {
+    
+    // Page of order ids for a manufacturer's inbox, answered from idx_manufacturer_orders_inbox alone
+    @Query(value = "SELECT mo.order.id FROM ManufacturerOrder mo WHERE mo.manufacturerId = :manufacturerId",
+           countQuery = "SELECT COUNT(mo) FROM ManufacturerOrder mo WHERE mo.manufacturerId = :manufacturerId")
+    Page<String> findOrderIdsByManufacturerId(@Param("manufacturerId") String manufacturerId, Pageable pageable);
+    
+    @Query("SELECT mo.order.id FROM ManufacturerOrder mo WHERE mo.manufacturerId = :manufacturerId " +
+           "ORDER BY mo.createdAt DESC")
+    List<String> findOrderIdsByManufacturerId(@Param("manufacturerId") String manufacturerId);
+    
+    long countByManufacturerId(String manufacturerId);
+    
+    // Which of these orders are in the manufacturer's inbox, for ownership checks on bulk updates
+    @Query("SELECT mo.order.id FROM ManufacturerOrder mo WHERE mo.manufacturerId = :manufacturerId " +
+           "AND mo.order.id IN :orderIds")
+    List<String> findOrderIdsByManufacturerIdAndOrderIdIn(@Param("manufacturerId") String manufacturerId,
+                                                          @Param("orderIds") Collection<String> orderIds);
+    
+    @Modifying
+    @Query("UPDATE ManufacturerOrder mo SET mo.status = :status WHERE mo.order.id = :orderId")
+    int updateStatusByOrderId(@Param("orderId") String orderId, @Param("status") OrderStatus status);
+    
+    @Modifying
+    @Query("UPDATE ManufacturerOrder mo SET mo.status = :status WHERE mo.order.id IN :orderIds")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<String> orderIds, @Param("status") OrderStatus status);
+}
@@ -1,5 +1,6 @@
 package com.crackersbazaar.repository;
 
+import com.crackersbazaar.dto.ResourceVersion;
 import com.crackersbazaar.entity.Manufacturer;
 import com.crackersbazaar.entity.ManufacturerStatus;
 import com.crackersbazaar.entity.User;
@@ -46,4 +47,12 @@ public interface ManufacturerRepository extends JpaRepository<Manufacturer, Stri
     
     @Query("SELECT COUNT(m) FROM Manufacturer m WHERE m.verified = :verified")
     Long countByVerified(@Param("verified") Boolean verified);
+    
+    // Version stamps for conditional GETs; read only the version columns, never the full rows.
+    // The token carries the row version, which every write bumps
+    @Query("SELECT new com.crackersbazaar.dto.ResourceVersion(m.updatedAt, m.id, m.version) FROM Manufacturer m WHERE m.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") String id);
+    
+    @Query("SELECT new com.crackersbazaar.dto.ResourceVersion(m.updatedAt, m.id, m.version) FROM Manufacturer m WHERE m.user.id = :userId")
+    Optional<ResourceVersion> findVersionByUserId(@Param("userId") String userId);
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -28,5 +29,9 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, String> {
     
     @Query("SELECT SUM(oi.totalPrice) FROM OrderItem oi WHERE oi.product.id = :productId AND oi.order.status = 'DELIVERED'")
     Double getTotalRevenueByProduct(@Param("productId") Long productId);
+    
+    // Units per product across a set of orders: [productId, quantity]
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id IN :orderIds GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProductForOrders(@Param("orderIds") Collection<String> orderIds);
 }
 
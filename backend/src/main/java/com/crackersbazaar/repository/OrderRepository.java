@@ -3,14 +3,18 @@ package com.crackersbazaar.repository;
 import com.crackersbazaar.entity.Order;
 import com.crackersbazaar.entity.OrderStatus;
 import com.crackersbazaar.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +23,17 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    Optional<Order> findByUserIdAndIdempotencyKey(String userId, String idempotencyKey);
+    
+    // Orders for a page of ids, with buyer and lines loaded in the same query
+    @EntityGraph(attributePaths = {"user", "orderItems"})
+    List<Order> findByIdIn(Collection<String> ids);
+    
+    // Lock a set of orders for a bulk status change; id order keeps concurrent bulk updates from deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findByIdInForUpdate(@Param("ids") Collection<String> ids);
+    
     List<Order> findByUser(User user);
     
     Page<Order> findByUser(User user, Pageable pageable);
@@ -51,25 +66,19 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC")
     Page<Order> findByUserId(@Param("userId") String userId, Pageable pageable);
     
-    @Query("SELECT o FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId ORDER BY o.createdAt DESC")
-    List<Order> findOrdersByManufacturerId(@Param("manufacturerId") String manufacturerId);
-    
-    @Query("SELECT o FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId ORDER BY o.createdAt DESC")
-    Page<Order> findOrdersByManufacturerId(@Param("manufacturerId") String manufacturerId, Pageable pageable);
+    // Keyset listing ordered by (createdAt desc, id desc); pass a null createdAt/id for the first page
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND " +
+           "(:createdAt IS NULL OR o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserIdAfter(@Param("userId") String userId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") String id,
+                                  Pageable limit);
     
     @Query("SELECT o FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId AND o.status = :status ORDER BY o.createdAt DESC")
     List<Order> findOrdersByManufacturerIdAndStatus(@Param("manufacturerId") String manufacturerId, @Param("status") OrderStatus status);
     
     @Query("SELECT o FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId AND o.status = :status ORDER BY o.createdAt DESC")
     Page<Order> findOrdersByManufacturerIdAndStatus(@Param("manufacturerId") String manufacturerId, @Param("status") OrderStatus status, Pageable pageable);
-    
-    @Query("SELECT COUNT(DISTINCT o) FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId")
-    Long countOrdersByManufacturerId(@Param("manufacturerId") String manufacturerId);
-    
-    @Query("SELECT SUM(o.total) FROM Order o WHERE o.user.id = :userId AND o.status != 'CANCELLED'")
-    Double getTotalSpentByUser(@Param("userId") String userId);
-    
-    @Query("SELECT SUM(o.total) FROM Order o JOIN o.orderItems oi WHERE oi.product.manufacturer.id = :manufacturerId AND o.status = 'DELIVERED'")
-    Double getTotalRevenueByManufacturer(@Param("manufacturerId") String manufacturerId);
 }
 
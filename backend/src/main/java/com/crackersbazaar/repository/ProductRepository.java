@@ -1,93 +1,177 @@
 package com.crackersbazaar.repository;
 
+import com.crackersbazaar.dto.ProductCardResponse;
+import com.crackersbazaar.dto.ResourceVersion;
 import com.crackersbazaar.entity.Manufacturer;
 import com.crackersbazaar.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, String> {
     
+    // Listing queries fetch the manufacturer in the same statement; image URLs are
+    // batch-loaded per page through @BatchSize on Product.imageUrls
+    @Override
+    @EntityGraph(attributePaths = {"manufacturer"})
+    List<Product> findAll();
+    
+    @Override
+    @EntityGraph(attributePaths = {"manufacturer"})
+    Page<Product> findAll(Pageable pageable);
+    
     // Find products by manufacturer
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByManufacturer(Manufacturer manufacturer);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByManufacturer(Manufacturer manufacturer, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByManufacturerAndIsActive(Manufacturer manufacturer, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByManufacturerAndIsActive(Manufacturer manufacturer, Boolean isActive, Pageable pageable);
     
     // Find products by category
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByCategory(String category);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByCategory(String category, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByCategoryAndIsActive(String category, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByCategoryAndIsActive(String category, Boolean isActive, Pageable pageable);
     
     // Find products by subcategory
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findBySubcategory(String subcategory);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findBySubcategory(String subcategory, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findBySubcategoryAndIsActive(String subcategory, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findBySubcategoryAndIsActive(String subcategory, Boolean isActive, Pageable pageable);
     
     // Find products by price range
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByPriceBetweenAndIsActive(BigDecimal minPrice, BigDecimal maxPrice, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByPriceBetweenAndIsActive(BigDecimal minPrice, BigDecimal maxPrice, Boolean isActive, Pageable pageable);
     
     // Find products by manufacturer and category
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByManufacturerAndCategory(Manufacturer manufacturer, String category);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByManufacturerAndCategory(Manufacturer manufacturer, String category, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByManufacturerAndCategoryAndIsActive(Manufacturer manufacturer, String category, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByManufacturerAndCategoryAndIsActive(Manufacturer manufacturer, String category, Boolean isActive, Pageable pageable);
     
     // Search products by name
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByNameContainingIgnoreCase(String name);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByNameContainingIgnoreCaseAndIsActive(String name, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByNameContainingIgnoreCaseAndIsActive(String name, Boolean isActive, Pageable pageable);
     
     // Search products by description
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByDescriptionContainingIgnoreCase(String description);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByDescriptionContainingIgnoreCase(String description, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByDescriptionContainingIgnoreCaseAndIsActive(String description, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByDescriptionContainingIgnoreCaseAndIsActive(String description, Boolean isActive, Pageable pageable);
     
     // Find products by brand
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByBrand(String brand);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByBrand(String brand, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByBrandAndIsActive(String brand, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByBrandAndIsActive(String brand, Boolean isActive, Pageable pageable);
     
+    // Find products by id, preserving no particular order; callers re-order as needed
+    @EntityGraph(attributePaths = {"manufacturer"})
+    List<Product> findByIdIn(Collection<String> ids);
+    
+    // Walk the whole catalog in id order, one batch at a time
+    List<Product> findTop1000ByIdGreaterThanOrderByIdAsc(String id);
+    
+    // Forward-only cursor over the catalog for exports. Integer.MIN_VALUE makes MySQL Connector/J
+    // stream rows one at a time instead of buffering the whole result set; images are not fetched
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.manufacturer m " +
+           "WHERE (:manufacturerId IS NULL OR m.id = :manufacturerId) ORDER BY p.id")
+    Stream<Product> streamForExport(@Param("manufacturerId") String manufacturerId);
+    
+    // Version stamps for conditional GETs; read only the version columns, never the full rows.
+    // The token carries the row version, which every write bumps; responses embed manufacturer
+    // details, so the manufacturer's row version counts too
+    @Query("SELECT new com.crackersbazaar.dto.ResourceVersion(p.updatedAt, p.id, p.version, m.updatedAt, m.version) " +
+           "FROM Product p LEFT JOIN p.manufacturer m WHERE p.id = :id")
+    Optional<ResourceVersion> findVersionById(@Param("id") String id);
+    
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") String id);
+    
+    // Existing SKUs and barcodes among a batch of candidates, for set-based uniqueness checks
+    @Query("SELECT p.sku, p.barcode FROM Product p WHERE p.sku IN :skus OR p.barcode IN :barcodes")
+    List<Object[]> findSkuAndBarcodeIn(@Param("skus") Collection<String> skus,
+                                       @Param("barcodes") Collection<String> barcodes);
+    
     // Find products by SKU
     Optional<Product> findBySku(String sku);
     
@@ -99,26 +183,36 @@ public interface ProductRepository extends JpaRepository<Product, String> {
     Optional<Product> findByBarcodeAndIsActive(String barcode, Boolean isActive);
     
     // Find featured products
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByIsFeaturedAndIsActive(Boolean isFeatured, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByIsFeaturedAndIsActive(Boolean isFeatured, Boolean isActive, Pageable pageable);
     
     // Find products with low stock
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByStockQuantityLessThan(Integer threshold);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByStockQuantityLessThan(Integer threshold, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByStockQuantityLessThanAndIsActive(Integer threshold, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByStockQuantityLessThanAndIsActive(Integer threshold, Boolean isActive, Pageable pageable);
     
     // Find products with no stock
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByStockQuantity(Integer stockQuantity);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByStockQuantity(Integer stockQuantity, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     List<Product> findByStockQuantityAndIsActive(Integer stockQuantity, Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     Page<Product> findByStockQuantityAndIsActive(Integer stockQuantity, Boolean isActive, Pageable pageable);
     
     // Count products by manufacturer
@@ -132,6 +226,7 @@ public interface ProductRepository extends JpaRepository<Product, String> {
     Long countByCategoryAndIsActive(String category, Boolean isActive);
     
     // Complex search query
+    @EntityGraph(attributePaths = {"manufacturer"})
     @Query("SELECT p FROM Product p WHERE " +
            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
            "(:category IS NULL OR p.category = :category) AND " +
@@ -151,16 +246,93 @@ public interface ProductRepository extends JpaRepository<Product, String> {
                                 @Param("manufacturer") Manufacturer manufacturer,
                                 Pageable pageable);
     
+    // Keyset listing ordered by (createdAt desc, id desc); pass a null createdAt/id for the first page
+    @EntityGraph(attributePaths = {"manufacturer"})
+    @Query("SELECT p FROM Product p WHERE " +
+           "(:category IS NULL OR p.category = :category) AND " +
+           "(:brand IS NULL OR p.brand = :brand) AND " +
+           "(:manufacturerId IS NULL OR p.manufacturer.id = :manufacturerId) AND " +
+           "(:isActive IS NULL OR p.isActive = :isActive) AND " +
+           "(:createdAt IS NULL OR p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findPageAfter(@Param("category") String category,
+                                @Param("brand") String brand,
+                                @Param("manufacturerId") String manufacturerId,
+                                @Param("isActive") Boolean isActive,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") String id,
+                                Pageable limit);
+    
+    // Card projections for listing grids: only the columns a product card shows, no entity hydration
+    String CARD_SELECT = "SELECT new com.crackersbazaar.dto.ProductCardResponse(" +
+           "p.id, p.name, p.price, p.stockQuantity, m.id, m.companyName, p.createdAt) " +
+           "FROM Product p JOIN p.manufacturer m ";
+    
+    String CARD_FILTER = "WHERE " +
+           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:description IS NULL OR LOWER(p.description) LIKE LOWER(CONCAT('%', :description, '%'))) AND " +
+           "(:category IS NULL OR p.category = :category) AND " +
+           "(:subcategory IS NULL OR p.subcategory = :subcategory) AND " +
+           "(:brand IS NULL OR p.brand = :brand) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
+           "(:manufacturerId IS NULL OR m.id = :manufacturerId) AND " +
+           "(:isActive IS NULL OR p.isActive = :isActive) AND " +
+           "(:isFeatured IS NULL OR p.isFeatured = :isFeatured) AND " +
+           "(:stockBelow IS NULL OR p.stockQuantity < :stockBelow)";
+    
+    @Query(value = CARD_SELECT + CARD_FILTER,
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN p.manufacturer m " + CARD_FILTER)
+    Page<ProductCardResponse> findCards(@Param("name") String name,
+                                        @Param("description") String description,
+                                        @Param("category") String category,
+                                        @Param("subcategory") String subcategory,
+                                        @Param("brand") String brand,
+                                        @Param("minPrice") BigDecimal minPrice,
+                                        @Param("maxPrice") BigDecimal maxPrice,
+                                        @Param("manufacturerId") String manufacturerId,
+                                        @Param("isActive") Boolean isActive,
+                                        @Param("isFeatured") Boolean isFeatured,
+                                        @Param("stockBelow") Integer stockBelow,
+                                        Pageable pageable);
+    
+    @Query(CARD_SELECT + "WHERE p.id IN :ids")
+    List<ProductCardResponse> findCardsByIdIn(@Param("ids") Collection<String> ids);
+    
+    // Keyset variant of findCards, ordered by (createdAt desc, id desc) like findPageAfter
+    @Query(CARD_SELECT + "WHERE " +
+           "(:category IS NULL OR p.category = :category) AND " +
+           "(:brand IS NULL OR p.brand = :brand) AND " +
+           "(:manufacturerId IS NULL OR m.id = :manufacturerId) AND " +
+           "(:isActive IS NULL OR p.isActive = :isActive) AND " +
+           "(:createdAt IS NULL OR p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductCardResponse> findCardPageAfter(@Param("category") String category,
+                                                @Param("brand") String brand,
+                                                @Param("manufacturerId") String manufacturerId,
+                                                @Param("isActive") Boolean isActive,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") String id,
+                                                Pageable limit);
+    
+    // All image URLs for a page of products as (productId, imageUrl) rows
+    @Query("SELECT p.id, i FROM Product p JOIN p.imageUrls i WHERE p.id IN :ids")
+    List<Object[]> findImageUrlsByProductIdIn(@Param("ids") Collection<String> ids);
+    
     // Find products by tags
+    @EntityGraph(attributePaths = {"manufacturer"})
     @Query("SELECT p FROM Product p WHERE p.tags LIKE %:tag%")
     List<Product> findByTag(@Param("tag") String tag);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     @Query("SELECT p FROM Product p WHERE p.tags LIKE %:tag%")
     Page<Product> findByTag(@Param("tag") String tag, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     @Query("SELECT p FROM Product p WHERE p.tags LIKE %:tag% AND p.isActive = :isActive")
     List<Product> findByTagAndIsActive(@Param("tag") String tag, @Param("isActive") Boolean isActive);
     
+    @EntityGraph(attributePaths = {"manufacturer"})
     @Query("SELECT p FROM Product p WHERE p.tags LIKE %:tag% AND p.isActive = :isActive")
     Page<Product> findByTagAndIsActive(@Param("tag") String tag, @Param("isActive") Boolean isActive, Pageable pageable);
 }
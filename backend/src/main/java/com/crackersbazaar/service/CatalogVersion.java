@@ -0,0 +1,15 @@
+package com.crackersbazaar.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Version stamp of the whole product catalog for conditional GETs on listings.
+ * Bumped by every committed write that can change a listing: products, stock and manufacturers.
+ */
+@Component
+public class CatalogVersion extends WriteCounterVersion {
+
+    public CatalogVersion() {
+        super("catalog");
+    }
+}
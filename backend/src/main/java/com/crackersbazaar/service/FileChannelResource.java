@@ -0,0 +1,88 @@
+package com.crackersbazaar.service;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A disk-cached image served from the channel opened when it was looked up. The open channel keeps
+ * the bytes readable even if cache eviction or invalidation deletes the file before the response is
+ * written. Every stream reads from the start with positional reads, so Spring can open one per range,
+ * and closing a stream leaves the channel open; {@link #close()} releases it.
+ */
+class FileChannelResource extends AbstractResource implements Closeable {
+
+    private final FileChannel channel;
+    private final long length;
+
+    FileChannelResource(FileChannel channel, long length) {
+        this.channel = channel;
+        this.length = length;
+    }
+
+    @Override
+    public String getDescription() {
+        return "cached image file (" + length + " bytes)";
+    }
+
+    @Override
+    public boolean exists() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new InputStream() {
+            private long position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int count) throws IOException {
+                if (count == 0) {
+                    return 0;
+                }
+                if (position >= length) {
+                    return -1;
+                }
+                int wanted = (int) Math.min(count, length - position);
+                int read = channel.read(ByteBuffer.wrap(buffer, offset, wanted), position);
+                if (read < 0) {
+                    return -1;
+                }
+                position += read;
+                return read;
+            }
+
+            @Override
+            public long skip(long count) {
+                long skipped = Math.max(0, Math.min(count, length - position));
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, length - position);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
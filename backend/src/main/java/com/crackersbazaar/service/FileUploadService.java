@@ -1,6 +1,8 @@
 package com.crackersbazaar.service;
 
+import com.crackersbazaar.dto.ImageUploadResult;
 import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,10 +16,15 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class FileUploadService {
     
+    @Autowired
+    private ImageProcessingExecutor imageProcessingExecutor;
+    
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
     
@@ -39,50 +46,47 @@ public class FileUploadService {
     @Value("${app.upload.allowed-types:image/jpeg,image/png,image/gif,image/webp}")
     private String allowedTypes;
     
-    public List<String> uploadProductImages(List<MultipartFile> files, Long productId) throws IOException {
-        List<String> uploadedUrls = new ArrayList<>();
-        
+    /**
+     * Save several product images in parallel on the image CPU pool (compress, write, thumbnail).
+     * A file that fails is reported in its result without failing the others.
+     */
+    public List<ImageUploadResult> uploadProductImages(List<MultipartFile> files, Long productId) throws IOException {
         // Create product-specific directory
         String productDir = uploadDir + "/products/" + productId;
         Path productPath = Paths.get(productDir);
         Files.createDirectories(productPath);
         
+        List<CompletableFuture<ImageUploadResult>> uploads = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file.isEmpty()) {
                 continue;
             }
             
-            // Validate file
-            validateFile(file);
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = getFileExtension(originalFilename);
-            String filename = java.util.UUID.randomUUID().toString() + extension;
-            
-            Path filePath = productPath.resolve(filename);
-            
-            // Compress and save image
-            long originalSize = file.getSize();
-            compressAndSaveImage(file, filePath);
-            long compressedSize = Files.size(filePath);
-            
-            // Log compression results
-            if (originalSize > compressThreshold) {
-                double compressionRatio = ((double)(originalSize - compressedSize) / originalSize) * 100;
-                System.out.println(String.format("Image compressed: %s -> %s (%.1f%% reduction)", 
-                    formatFileSize(originalSize), formatFileSize(compressedSize), compressionRatio));
+            String originalName = file.getOriginalFilename();
+            try {
+                validateFile(file);
+            } catch (IllegalArgumentException e) {
+                uploads.add(CompletableFuture.completedFuture(ImageUploadResult.failed(originalName, file.getSize(), e.getMessage())));
+                continue;
             }
             
-            // Create thumbnail
-            createThumbnail(filePath.toString(), productPath.resolve("thumb_" + filename).toString());
-            
-            // Generate URL
-            String fileUrl = "/uploads/products/" + productId + "/" + filename;
-            uploadedUrls.add(fileUrl);
+            uploads.add(imageProcessingExecutor.transcode(() -> {
+                        Path filePath = saveProductImage(file, productPath);
+                        String fileUrl = "/uploads/products/" + productId + "/" + filePath.getFileName();
+                        return ImageUploadResult.uploaded(originalName, fileUrl, null, file.getSize(), Files.size(filePath));
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        System.err.println("Failed to save image " + originalName + ": " + cause.getMessage());
+                        return ImageUploadResult.failed(originalName, file.getSize(), cause.getMessage());
+                    }));
         }
         
-        return uploadedUrls;
+        List<ImageUploadResult> results = new ArrayList<>(uploads.size());
+        for (CompletableFuture<ImageUploadResult> upload : uploads) {
+            results.add(upload.join());
+        }
+        return results;
     }
     
     public String uploadSingleImage(MultipartFile file, Long productId) throws IOException {
@@ -97,6 +101,16 @@ public class FileUploadService {
         Path productPath = Paths.get(productDir);
         Files.createDirectories(productPath);
         
+        Path filePath = saveProductImage(file, productPath);
+        
+        // Generate URL
+        return "/uploads/products/" + productId + "/" + filePath.getFileName();
+    }
+    
+    /**
+     * Compress and save one validated image with its thumbnail, returning the saved file
+     */
+    private Path saveProductImage(MultipartFile file, Path productPath) throws IOException {
         // Generate unique filename
         String originalFilename = file.getOriginalFilename();
         String extension = getFileExtension(originalFilename);
@@ -119,8 +133,7 @@ public class FileUploadService {
         // Create thumbnail
         createThumbnail(filePath.toString(), productPath.resolve("thumb_" + filename).toString());
         
-        // Generate URL
-        return "/uploads/products/" + productId + "/" + filename;
+        return filePath;
     }
     
     public void deleteProductImages(String productId) throws IOException {
@@ -0,0 +1,516 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache for images by storage key. Tier one is an in-heap LRU bounded by total bytes
+ * rather than entry count, holding only small images (thumbnails, listing photos); tier two is a
+ * local directory bounded by size that keeps the long tail and survives restarts. Each entry keeps
+ * the ETag of the stored object (in a small ".etag" file next to disk entries). Keys are immutable
+ * upload names, so entries only leave through eviction or {@link #invalidate(String)} on delete.
+ * Callers capture {@link #generation()} before fetching an object, so a fill that races with the
+ * deletion of its key is dropped rather than bringing the deleted image back.
+ */
+@Component
+public class ImageCache {
+
+    private static final String ETAG_SUFFIX = ".etag";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAX_STAMPS = 10_000;
+
+    @Value("${app.images.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.cache.memory-max-bytes:67108864}") // 64MB
+    private long memoryMaxBytes;
+
+    @Value("${app.images.cache.memory-max-entry-bytes:524288}") // 512KB
+    private long memoryMaxEntryBytes;
+
+    @Value("${app.images.cache.disk-dir:${java.io.tmpdir}/crackers-bazaar-image-cache}")
+    private String diskDir;
+
+    @Value("${app.images.cache.disk-max-bytes:1073741824}") // 1GB
+    private long diskMaxBytes;
+
+    private Path diskPath;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    // A fill racing with the delete of its key is dropped, while fills of other keys still commit.
+    // Commits check it and invalidations remove entries under its lock
+    private final InvalidationStamps invalidationStamps = new InvalidationStamps(() -> MAX_STAMPS);
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong staleFills = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            diskPath = Paths.get(diskDir).toAbsolutePath().normalize();
+            Files.createDirectories(diskPath);
+            long size = 0;
+            try (Stream<Path> files = Files.list(diskPath)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        // Left behind by a write interrupted by shutdown
+                        Files.deleteIfExists(file);
+                    } else if (isImageFile(file)) {
+                        size += Files.size(file);
+                    }
+                }
+            }
+            diskBytes.set(size);
+        } catch (IOException e) {
+            System.err.println("Image disk cache disabled, cannot use " + diskDir + ": " + e.getMessage());
+            diskPath = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Current invalidation generation. Capture it before fetching an object from storage and hand
+     * it back to {@link #put} or {@link #fillWhileReading}.
+     */
+    public long generation() {
+        return invalidationStamps.current();
+    }
+
+    /**
+     * Whether an image of this size is kept in the heap tier, and so is worth reading fully on a miss.
+     */
+    public boolean fitsInMemory(long length) {
+        return enabled && length <= memoryMaxEntryBytes;
+    }
+
+    /**
+     * The cached entry for {@code key} from memory or disk, or null on a miss.
+     */
+    public Entry lookup(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            return entry;
+        }
+        entry = lookupOnDisk(key);
+        if (entry != null) {
+            diskHits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache a fully read image in both tiers, unless its key was invalidated since
+     * {@code fetchedAtGeneration}, and return it as an entry.
+     */
+    public Entry put(String key, byte[] bytes, String eTag, long fetchedAtGeneration) {
+        Entry entry = new Entry(bytes, null, bytes.length, eTag);
+        if (!enabled) {
+            return entry;
+        }
+        putInMemory(key, entry, fetchedAtGeneration);
+        if (diskPath != null && bytes.length <= diskMaxBytes) {
+            Path temp = tempFile();
+            try {
+                Files.write(temp, bytes);
+                commitToDisk(key, temp, eTag, fetchedAtGeneration);
+            } catch (IOException e) {
+                diskErrors.incrementAndGet();
+            } finally {
+                deleteQuietly(temp);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Wrap a stream that is being sent to a client so that it is copied into the disk tier as
+     * it is read. The copy is kept only if the whole object ({@code length} bytes) went through
+     * and the key was not invalidated since {@code fetchedAtGeneration}.
+     */
+    public InputStream fillWhileReading(String key, String eTag, long length, InputStream source,
+                                        long fetchedAtGeneration) {
+        if (!enabled || diskPath == null || length > diskMaxBytes) {
+            return source;
+        }
+        Path temp = tempFile();
+        OutputStream copy;
+        try {
+            copy = Files.newOutputStream(temp);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            return source;
+        }
+        return new FilterInputStream(source) {
+            private long copied;
+            private boolean failed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int count) throws IOException {
+                int read = super.read(buffer, offset, count);
+                if (read > 0) {
+                    write(buffer, offset, read);
+                }
+                return read;
+            }
+
+            // A failing cache write must not break the response; stop copying and drop the file
+            private void write(byte[] buffer, int offset, int count) {
+                if (failed) {
+                    return;
+                }
+                try {
+                    copy.write(buffer, offset, count);
+                    copied += count;
+                } catch (IOException e) {
+                    failed = true;
+                    diskErrors.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    try {
+                        copy.close();
+                        if (!failed && copied == length) {
+                            commitToDisk(key, temp, eTag, fetchedAtGeneration);
+                        }
+                    } catch (IOException e) {
+                        diskErrors.incrementAndGet();
+                    } finally {
+                        deleteQuietly(temp);
+                    }
+                }
+            }
+        };
+    }
+
+    public void invalidate(String key) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (invalidationStamps) {
+            invalidationStamps.invalidate(key);
+
+            synchronized (memory) {
+                Entry removed = memory.remove(key);
+                if (removed != null) {
+                    memoryBytes -= removed.length;
+                }
+            }
+            if (diskPath != null) {
+                deleteImageFile(diskPath.resolve(fileName(key)));
+            }
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public void clear() {
+        synchronized (invalidationStamps) {
+            invalidationStamps.invalidateAll();
+            synchronized (memory) {
+                memory.clear();
+                memoryBytes = 0;
+            }
+            if (diskPath != null) {
+                try (Stream<Path> files = Files.list(diskPath)) {
+                    files.filter(this::isImageFile).forEach(this::deleteImageFile);
+                } catch (IOException e) {
+                    diskErrors.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long memoryHitCount = memoryHits.get();
+        long diskHitCount = diskHits.get();
+        long missCount = misses.get();
+        long requests = memoryHitCount + diskHitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("memoryMaxBytes", memoryMaxBytes);
+        stats.put("diskEnabled", diskPath != null);
+        stats.put("diskBytes", diskBytes.get());
+        stats.put("diskMaxBytes", diskMaxBytes);
+        stats.put("memoryHits", memoryHitCount);
+        stats.put("diskHits", diskHitCount);
+        stats.put("misses", missCount);
+        stats.put("memoryHitRatio", requests == 0 ? 0.0 : (double) memoryHitCount / requests);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) (memoryHitCount + diskHitCount) / requests);
+        stats.put("memoryEvictions", memoryEvictions.get());
+        stats.put("diskEvictions", diskEvictions.get());
+        stats.put("invalidations", invalidations.get());
+        synchronized (invalidationStamps) {
+            stats.put("invalidationStamps", invalidationStamps.size());
+        }
+        stats.put("staleFills", staleFills.get());
+        stats.put("diskErrors", diskErrors.get());
+        return stats;
+    }
+
+    // Large originals skip the heap tier; they would push out many thumbnails for a single hit
+    private void putInMemory(String key, Entry entry, long fetchedAtGeneration) {
+        if (entry.bytes == null || entry.length > memoryMaxEntryBytes) {
+            return;
+        }
+        synchronized (invalidationStamps) {
+            if (invalidationStamps.isStale(key, fetchedAtGeneration)) {
+                staleFills.incrementAndGet();
+                return;
+            }
+            synchronized (memory) {
+                Entry previous = memory.put(key, entry);
+                memoryBytes += entry.length - (previous != null ? previous.length : 0);
+                Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+                while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                    Map.Entry<String, Entry> evicted = eldest.next();
+                    memoryBytes -= evicted.getValue().length;
+                    eldest.remove();
+                    memoryEvictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Small disk entries are promoted to memory; larger ones are served from the file, opened here so
+    // that eviction or invalidation deleting it before the response is written cannot fail the read.
+    // A disk hit bumps the file's modified time, which is what disk eviction orders by
+    private Entry lookupOnDisk(String key) {
+        if (diskPath == null) {
+            return null;
+        }
+        Path file = diskPath.resolve(fileName(key));
+        long readAtGeneration = invalidationStamps.current();
+        try {
+            long length = Files.size(file);
+            String eTag = readETag(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            if (length <= memoryMaxEntryBytes) {
+                Entry entry = new Entry(Files.readAllBytes(file), null, length, eTag);
+                putInMemory(key, entry, readAtGeneration);
+                return entry;
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new Entry(null, channel, channel.size(), eTag);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            return null;
+        }
+    }
+
+    // Move a fully written temp file into place, so readers never see a partial image.
+    // The caller deletes the temp file if it was not moved
+    private void commitToDisk(String key, Path temp, String eTag, long fetchedAtGeneration) throws IOException {
+        Path file = diskPath.resolve(fileName(key));
+        long length = Files.size(temp);
+        synchronized (invalidationStamps) {
+            if (invalidationStamps.isStale(key, fetchedAtGeneration)) {
+                staleFills.incrementAndGet();
+                return;
+            }
+            if (eTag != null) {
+                Files.writeString(eTagFile(file), eTag);
+            }
+            // Two concurrent misses may both write the key; count only what replaces the earlier file
+            long replaced = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskBytes.addAndGet(length - replaced);
+        }
+        if (diskBytes.get() > diskMaxBytes) {
+            evictFromDisk();
+        }
+    }
+
+    // Drop the least recently used files until the tier is back under 90% of its budget
+    private synchronized void evictFromDisk() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(diskPath)) {
+            listing.filter(this::isImageFile).forEach(files::add);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            return;
+        }
+        files.sort(Comparator.comparingLong(this::lastModified));
+        long target = diskMaxBytes / 10 * 9;
+        for (Path file : files) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            if (deleteImageFile(file)) {
+                diskEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean deleteImageFile(Path file) {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+                Files.deleteIfExists(eTagFile(file));
+                return true;
+            }
+        } catch (NoSuchFileException e) {
+            // Already evicted or invalidated
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+        return false;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    private String readETag(Path file) throws IOException {
+        try {
+            return Files.readString(eTagFile(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private boolean isImageFile(Path file) {
+        String name = file.getFileName().toString();
+        return !name.endsWith(ETAG_SUFFIX) && !name.endsWith(TEMP_SUFFIX);
+    }
+
+    private Path eTagFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ETAG_SUFFIX);
+    }
+
+    private Path tempFile() {
+        return diskPath.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached image: its bytes when held in memory, otherwise the disk file to stream from.
+     */
+    public static class Entry {
+        private final byte[] bytes;
+        private final FileChannel channel;
+        private final long length;
+        private final String eTag;
+
+        Entry(byte[] bytes, FileChannel channel, long length, String eTag) {
+            this.bytes = bytes;
+            this.channel = channel;
+            this.length = length;
+            this.eTag = eTag;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        // Open channel of a disk entry, owned by the caller: serve it and close it
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
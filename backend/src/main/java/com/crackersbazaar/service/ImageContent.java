@@ -0,0 +1,63 @@
+package com.crackersbazaar.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An image ready to be written to a response: served from the image cache (bytes or a disk file)
+ * or streamed straight from S3. A partial S3 response carries the Content-Range S3 returned.
+ * Close it once the response has been written, to release a cached file held open for it.
+ */
+public class ImageContent implements Closeable {
+
+    private final Resource resource;
+    private final long contentLength;
+    private final String eTag;
+    private final String contentRange;
+    private final boolean streamed;
+
+    ImageContent(Resource resource, long contentLength, String eTag, String contentRange, boolean streamed) {
+        this.resource = resource;
+        this.contentLength = contentLength;
+        this.eTag = eTag;
+        this.contentRange = contentRange;
+        this.streamed = streamed;
+    }
+
+    public boolean isPartial() {
+        return contentRange != null;
+    }
+
+    // Getters
+    public Resource getResource() {
+        return resource;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getContentRange() {
+        return contentRange;
+    }
+
+    /**
+     * True when the body is a one-shot S3 stream rather than a re-readable cached copy.
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (resource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
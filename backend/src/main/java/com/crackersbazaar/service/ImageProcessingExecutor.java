@@ -0,0 +1,87 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool for image uploads. Decoding, resizing and re-encoding run on a pool sized to the
+ * cores; S3 uploads need no threads of their own, they stream out through the async S3 client
+ * while the image is encoded. The queue is bounded and overflow runs on the submitting thread,
+ * which slows the request down instead of piling decoded images up in the heap.
+ */
+@Component
+public class ImageProcessingExecutor {
+
+    @Value("${app.upload.workers.cpu-threads:0}") // 0 = one per core
+    private int cpuThreads;
+
+    @Value("${app.upload.workers.cpu-queue-capacity:32}")
+    private int cpuQueueCapacity;
+
+    private ThreadPoolExecutor cpuPool;
+
+    @PostConstruct
+    public void start() {
+        int threads = cpuThreads > 0 ? cpuThreads : Runtime.getRuntime().availableProcessors();
+        cpuPool = newPool("image-cpu", threads, cpuQueueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        cpuPool.shutdown();
+        if (!cpuPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            cpuPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run CPU-bound image work (decode, resize, encode).
+     */
+    public <T> CompletableFuture<T> transcode(Callable<T> task) {
+        return submit(cpuPool, task);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cpuThreads", cpuPool.getMaximumPoolSize());
+        stats.put("cpuActive", cpuPool.getActiveCount());
+        stats.put("cpuQueued", cpuPool.getQueue().size());
+        stats.put("cpuCompleted", cpuPool.getCompletedTaskCount());
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(ThreadPoolExecutor pool, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pool.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private ThreadPoolExecutor newPool(String name, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,192 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Responsive variants of uploaded images: a downscaled and optionally re-encoded copy per
+ * (image, width, format), e.g. ?w=320&fmt=webp. A variant is generated with Thumbnailator on its
+ * first request, stored in S3 under a deterministic key derived from the original's, and from then on
+ * served like any other image (through the image cache). Concurrent first requests for the same
+ * variant wait for one generation instead of each resizing the original.
+ */
+@Service
+public class ImageVariantService {
+
+    @Autowired
+    private S3StorageService s3StorageService;
+
+    // Fixed set of widths so clients cannot fill the bucket with one variant per pixel
+    @Value("${app.images.variants.widths:160,320,480,640,960,1280}")
+    private List<Integer> widths;
+
+    @Value("${app.images.variants.quality:0.8}")
+    private double quality;
+
+    private Set<String> formats;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong servedFromStore = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        formats = new LinkedHashSet<>(List.of("jpg", "png"));
+        // The JDK has no WebP encoder; webp-imageio registers one, and webp is offered only if its native library loads
+        Iterator<ImageWriter> webpWriters = ImageIO.getImageWritersByFormatName("webp");
+        if (webpWriters.hasNext() && canEncode(webpWriters.next())) {
+            formats.add("webp");
+        }
+        widths = new ArrayList<>(new TreeSet<>(widths));
+    }
+
+    /**
+     * Open the variant of {@code s3Key} at {@code width} in {@code format}, generating and storing it first if needed.
+     * Throws IllegalArgumentException for a width or format outside the configured set.
+     */
+    public ImageContent openVariant(String s3Key, int width, String format, String range, String ifNoneMatch) throws IOException {
+        String normalizedFormat = normalizeFormat(format);
+        if (!widths.contains(width)) {
+            throw new IllegalArgumentException("Unsupported width " + width + ", expected one of " + widths);
+        }
+        if (!formats.contains(normalizedFormat)) {
+            throw new IllegalArgumentException("Unsupported format " + format + ", expected one of " + formats);
+        }
+        if (s3Key.startsWith("variants/")) {
+            throw new IllegalArgumentException("Variants are derived from original images only");
+        }
+
+        String variantKey = s3StorageService.variantKey(s3Key, width, normalizedFormat);
+        try {
+            ImageContent stored = s3StorageService.openImage(variantKey, range, ifNoneMatch);
+            servedFromStore.incrementAndGet();
+            return stored;
+        } catch (FileNotFoundException e) {
+            generate(s3Key, variantKey, width, normalizedFormat);
+        }
+        return s3StorageService.openImage(variantKey, range, ifNoneMatch);
+    }
+
+    /**
+     * Format of a variant request with no fmt: PNG stays PNG (transparency), everything else becomes JPEG.
+     */
+    public String defaultFormat(String s3Key) {
+        return s3Key.toLowerCase().endsWith(".png") ? "png" : "jpg";
+    }
+
+    public String getContentType(String format) {
+        String normalizedFormat = normalizeFormat(format);
+        if (normalizedFormat.equals("png")) return "image/png";
+        if (normalizedFormat.equals("webp")) return "image/webp";
+        return "image/jpeg";
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("widths", widths);
+        stats.put("formats", formats);
+        stats.put("servedFromStore", servedFromStore.get());
+        stats.put("generated", generated.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("failures", failures.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    // One generation per variant key; later arrivals wait for it. Regenerating after a narrow race is harmless, the key is deterministic.
+    private void generate(String s3Key, String variantKey, int width, String format) throws IOException {
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(variantKey, generation);
+        if (running != null) {
+            deduplicated.incrementAndGet();
+            try {
+                running.join();
+                return;
+            } catch (CompletionException e) {
+                throw new IOException("Failed to generate image variant: " + variantKey, e.getCause());
+            }
+        }
+
+        try {
+            byte[] variant = resize(s3StorageService.getImage(s3Key), width, format);
+            s3StorageService.storeDerivedImage(variantKey, variant, getContentType(format));
+            generated.incrementAndGet();
+            generation.complete(null);
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(variantKey, generation);
+        }
+    }
+
+    // Only ever scales down; a narrow original is re-encoded at its own width
+    private byte[] resize(byte[] original, int width, String format) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+        if (image == null) {
+            throw new IOException("Original is not a readable image");
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(image)
+                .width(Math.min(width, image.getWidth()))
+                .outputFormat(format);
+        if (format.equals("jpg")) {
+            // JPEG has no alpha channel
+            builder.imageType(BufferedImage.TYPE_INT_RGB);
+        }
+        if (format.equals("webp")) {
+            builder.outputFormatType("Lossy");
+        }
+        if (!format.equals("png")) {
+            builder.outputQuality(quality);
+        }
+        builder.toOutputStream(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    // Creating the write params loads the writer's native encoder
+    private boolean canEncode(ImageWriter writer) {
+        try {
+            writer.getDefaultWriteParam();
+            return true;
+        } catch (LinkageError e) {
+            System.err.println("WebP variants disabled, encoder failed to load: " + e.getMessage());
+            return false;
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String normalizeFormat(String format) {
+        String normalized = format.toLowerCase();
+        return normalized.equals("jpeg") ? "jpg" : normalized;
+    }
+}
@@ -0,0 +1,81 @@
+package com.crackersbazaar.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Generation stamps that keep a cache fill from bringing back a value invalidated while it was
+ * being loaded. Loaders capture {@link #current()} before reading the source; every invalidation
+ * bumps the generation and records it against its key, so a fill is stale only when its own key
+ * was invalidated after the load started, and fills of other keys still go in.
+ *
+ * Stamps are kept in invalidation order and dropped after a retention period or past a size bound;
+ * dropping one raises a floor so that loads older than it are still rejected. Apart from
+ * {@link #current()}, callers must hold their own lock around every call, the same one that guards
+ * the cache update the check protects.
+ */
+class InvalidationStamps {
+
+    // How long a stamp is kept; a load still running after this is not cached at all
+    private static final long RETENTION_MS = 60_000;
+
+    private final IntSupplier maxStamps;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LinkedHashMap<String, Stamp> stamps = new LinkedHashMap<>();
+
+    // Loads that started before this generation are never cached (set by invalidateAll() and pruning)
+    private long floor;
+
+    InvalidationStamps(IntSupplier maxStamps) {
+        this.maxStamps = maxStamps;
+    }
+
+    long current() {
+        return generation.get();
+    }
+
+    void invalidate(String key) {
+        long now = System.currentTimeMillis();
+        // Re-insert so the map stays in invalidation order, oldest first
+        stamps.remove(key);
+        stamps.put(key, new Stamp(generation.incrementAndGet(), now));
+        prune(now);
+    }
+
+    void invalidateAll() {
+        floor = generation.incrementAndGet();
+        stamps.clear();
+    }
+
+    // Whether the key was invalidated (or everything was) after a load that started at this generation
+    boolean isStale(String key, long loadedAtGeneration) {
+        if (loadedAtGeneration < floor) {
+            return true;
+        }
+        Stamp stamp = stamps.get(key);
+        return stamp != null && stamp.generation() > loadedAtGeneration;
+    }
+
+    int size() {
+        return stamps.size();
+    }
+
+    // Forget old stamps, raising the floor past them so loads that started before them still are stale
+    private void prune(long now) {
+        Iterator<Stamp> iterator = stamps.values().iterator();
+        while (iterator.hasNext()) {
+            Stamp stamp = iterator.next();
+            if (now - stamp.at() < RETENTION_MS && stamps.size() <= maxStamps.getAsInt()) {
+                break;
+            }
+            floor = Math.max(floor, stamp.generation());
+            iterator.remove();
+        }
+    }
+
+    private record Stamp(long generation, long at) {}
+}
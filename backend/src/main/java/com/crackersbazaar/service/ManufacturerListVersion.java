@@ -0,0 +1,15 @@
+package com.crackersbazaar.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Version stamp of the admin manufacturer listings for conditional GETs.
+ * Bumped by every committed manufacturer create, update, verification and delete.
+ */
+@Component
+public class ManufacturerListVersion extends WriteCounterVersion {
+
+    public ManufacturerListVersion() {
+        super("manufacturers");
+    }
+}
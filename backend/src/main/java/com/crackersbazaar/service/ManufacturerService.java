@@ -3,6 +3,7 @@ package com.crackersbazaar.service;
 import com.crackersbazaar.dto.ManufacturerRequest;
 import com.crackersbazaar.dto.ManufacturerResponse;
 import com.crackersbazaar.dto.ManufacturerVerificationRequest;
+import com.crackersbazaar.dto.ResourceVersion;
 import com.crackersbazaar.entity.Manufacturer;
 import com.crackersbazaar.entity.ManufacturerStatus;
 import com.crackersbazaar.entity.Role;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -38,6 +40,20 @@ public class ManufacturerService {
     @Autowired
     private ManufacturerUserService manufacturerUserService;
     
+    // Product listings embed manufacturer details
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private ManufacturerListVersion manufacturerListVersion;
+    
+    // Cached product responses embed the manufacturer's name and email
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private OptimisticLockRetry optimisticLockRetry;
+    
     public ManufacturerResponse createManufacturer(ManufacturerRequest request) {
         // Validate password confirmation
         if (!request.getPassword().equals(request.getConfirmPassword())) {
@@ -83,6 +99,7 @@ public class ManufacturerService {
         manufacturer.setUser(savedUser);  // Link the user to manufacturer
         
         Manufacturer savedManufacturer = manufacturerRepository.save(manufacturer);
+        manufacturerListVersion.bumpAfterCommit();
         
         System.out.println("Manufacturer and User account created:");
         System.out.println("Manufacturer ID: " + savedManufacturer.getId());
@@ -152,51 +169,63 @@ public class ManufacturerService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ManufacturerResponse updateManufacturer(String id, ManufacturerRequest request) {
-        Manufacturer manufacturer = manufacturerRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + id));
+        return optimisticLockRetry.execute("manufacturer.update", () -> {
+            Manufacturer manufacturer = manufacturerRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + id));
         
-        // Check if email is being changed and if new email already exists
-        if (!manufacturer.getEmail().equals(request.getEmail())) {
-            if (manufacturerRepository.findByEmail(request.getEmail()).isPresent()) {
-                throw new RuntimeException("Manufacturer with email " + request.getEmail() + " already exists");
+            // Check if email is being changed and if new email already exists
+            if (!manufacturer.getEmail().equals(request.getEmail())) {
+                if (manufacturerRepository.findByEmail(request.getEmail()).isPresent()) {
+                    throw new RuntimeException("Manufacturer with email " + request.getEmail() + " already exists");
+                }
             }
-        }
 
-        setManufacturer(request, manufacturer);
+            setManufacturer(request, manufacturer);
         
-        Manufacturer savedManufacturer = manufacturerRepository.save(manufacturer);
-        return new ManufacturerResponse(savedManufacturer);
+            Manufacturer savedManufacturer = manufacturerRepository.save(manufacturer);
+            productCache.evictManufacturer(id);
+            catalogVersion.bumpAfterCommit();
+            manufacturerListVersion.bumpAfterCommit();
+            return new ManufacturerResponse(savedManufacturer);
+        });
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ManufacturerResponse verifyManufacturer(String id, ManufacturerVerificationRequest request, String adminId) {
-        Manufacturer manufacturer = manufacturerRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + id));
+        return optimisticLockRetry.execute("manufacturer.verify", () -> {
+            Manufacturer manufacturer = manufacturerRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + id));
         
-        manufacturer.setStatus(request.getStatus());
-        manufacturer.setVerificationNotes(request.getVerificationNotes());
-        manufacturer.setVerifiedBy(adminId);
-        manufacturer.setVerifiedAt(LocalDateTime.now());
+            manufacturer.setStatus(request.getStatus());
+            manufacturer.setVerificationNotes(request.getVerificationNotes());
+            manufacturer.setVerifiedBy(adminId);
+            manufacturer.setVerifiedAt(LocalDateTime.now());
         
-        // Set verified to true if status is APPROVED or ACTIVE
-        manufacturer.setVerified(request.getStatus() == ManufacturerStatus.APPROVED || request.getStatus() == ManufacturerStatus.ACTIVE);
+            // Set verified to true if status is APPROVED or ACTIVE
+            manufacturer.setVerified(request.getStatus() == ManufacturerStatus.APPROVED || request.getStatus() == ManufacturerStatus.ACTIVE);
         
-        Manufacturer savedManufacturer = manufacturerRepository.save(manufacturer);
+            Manufacturer savedManufacturer = manufacturerRepository.save(manufacturer);
+            productCache.evictManufacturer(id);
+            catalogVersion.bumpAfterCommit();
+            manufacturerListVersion.bumpAfterCommit();
         
-        // Update user account status based on manufacturer verification
-        User user = userRepository.findByEmail(manufacturer.getEmail()).orElse(null);
-        if (user != null) {
-            if (request.getStatus() == ManufacturerStatus.APPROVED || request.getStatus() == ManufacturerStatus.ACTIVE) {
-                user.setActive(true);
-                System.out.println("User account activated for approved manufacturer: " + manufacturer.getCompanyName());
-            } else if (request.getStatus() == ManufacturerStatus.REJECTED || request.getStatus() == ManufacturerStatus.SUSPENDED) {
-                user.setActive(false);
-                System.out.println("User account deactivated for manufacturer: " + manufacturer.getCompanyName());
+            // Update user account status based on manufacturer verification
+            User user = userRepository.findByEmail(manufacturer.getEmail()).orElse(null);
+            if (user != null) {
+                if (request.getStatus() == ManufacturerStatus.APPROVED || request.getStatus() == ManufacturerStatus.ACTIVE) {
+                    user.setActive(true);
+                    System.out.println("User account activated for approved manufacturer: " + manufacturer.getCompanyName());
+                } else if (request.getStatus() == ManufacturerStatus.REJECTED || request.getStatus() == ManufacturerStatus.SUSPENDED) {
+                    user.setActive(false);
+                    System.out.println("User account deactivated for manufacturer: " + manufacturer.getCompanyName());
+                }
+                userRepository.save(user);
             }
-            userRepository.save(user);
-        }
         
-        return new ManufacturerResponse(savedManufacturer);
+            return new ManufacturerResponse(savedManufacturer);
+        });
     }
     
     public void deleteManufacturer(String id) {
@@ -208,6 +237,9 @@ public class ManufacturerService {
         
         // Delete manufacturer (cascade will delete user due to CascadeType.REMOVE)
         manufacturerRepository.delete(manufacturer);
+        productCache.evictManufacturer(id);
+        catalogVersion.bumpAfterCommit();
+        manufacturerListVersion.bumpAfterCommit();
         
         System.out.println("Manufacturer deleted: " + manufacturer.getCompanyName());
         if (user != null) {
@@ -233,6 +265,20 @@ public class ManufacturerService {
         return new ManufacturerResponse(manufacturer);
     }
     
+    // Version stamps for conditional GETs, read without loading any manufacturer rows
+    public ResourceVersion getManufacturerVersion(String id) {
+        return manufacturerRepository.findVersionById(id).orElse(null);
+    }
+    
+    public ResourceVersion getManufacturerVersionByUserId(String userId) {
+        return manufacturerRepository.findVersionByUserId(userId).orElse(null);
+    }
+    
+    // Admin listings revalidate against the manufacturer write counter
+    public ResourceVersion getManufacturerListVersion() {
+        return manufacturerListVersion.current();
+    }
+    
     public ManufacturerResponse getManufacturerByUserEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
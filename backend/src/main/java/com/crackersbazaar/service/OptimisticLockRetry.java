@@ -0,0 +1,104 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in its own transaction and replays it when a versioned entity
+ * was changed underneath it. Attempts are capped and spaced with jittered exponential backoff;
+ * conflicts are counted per operation so contention on hot rows shows up in the admin metrics.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.retry.optimistic.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${app.retry.optimistic.base-delay-ms:20}")
+    private long baseDelayMs;
+
+    @Value("${app.retry.optimistic.max-delay-ms:500}")
+    private long maxDelayMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final Map<String, AtomicLong> conflictsByOperation = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Execute {@code action} in a fresh transaction, retrying on optimistic lock conflicts.
+     * Callers must not already hold a transaction that read the same rows, or every retry
+     * would see the same stale state; service methods using this are marked NOT_SUPPORTED.
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.incrementAndGet();
+                conflictsByOperation.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    System.err.println("Giving up on " + operation + " after " + attempt
+                            + " conflicting attempts: " + e.getMessage());
+                    throw new RuntimeException("The record was modified concurrently, please try again");
+                }
+                retries.incrementAndGet();
+                backoff(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> byOperation = new TreeMap<>();
+        conflictsByOperation.forEach((operation, count) -> byOperation.put(operation, count.get()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("conflicts", conflicts.get());
+        stats.put("retries", retries.get());
+        stats.put("exhausted", exhausted.get());
+        stats.put("conflictsByOperation", byOperation);
+        return stats;
+    }
+
+    // Full jitter: sleep a random time up to base * 2^(attempt - 1), capped at maxDelayMs
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying after a concurrent update");
+        }
+    }
+}
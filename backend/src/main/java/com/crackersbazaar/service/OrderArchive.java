@@ -0,0 +1,208 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.OrderResponse;
+import com.crackersbazaar.entity.Order;
+import com.crackersbazaar.entity.OrderStatus;
+import com.crackersbazaar.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves finished orders (delivered, cancelled, refunded) older than a configurable age out of the
+ * live orders, order_items and manufacturer_orders tables into orders_archive, one row per order
+ * holding its full OrderResponse as JSON. Runs off-peak in small chunks, each in its own short
+ * transaction with a pause in between, so it never holds many locks or a long transaction.
+ * Archived orders stay counted in the order rollups and remain readable by id and order number.
+ */
+@Component
+public class OrderArchive {
+
+    private static final Set<OrderStatus> ARCHIVABLE_STATUSES =
+            EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.REFUNDED);
+
+    // Oldest first along idx_orders_created_at
+    private static final String CANDIDATES_SQL =
+            "SELECT id FROM orders WHERE created_at < ? AND status IN ('DELIVERED', 'CANCELLED', 'REFUNDED') " +
+            "ORDER BY created_at LIMIT ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO orders_archive (id, order_number, user_id, status, total, created_at, archived_at, payload) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_BY_ID_SQL = "SELECT payload FROM orders_archive WHERE id = ?";
+
+    private static final String FIND_BY_ORDER_NUMBER_SQL = "SELECT payload FROM orders_archive WHERE order_number = ?";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.orders.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.orders.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${app.orders.archive.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.orders.archive.chunk-pause-ms:500}")
+    private long chunkPauseMs;
+
+    @Value("${app.orders.archive.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    private TransactionTemplate chunkTransaction;
+    private volatile LocalDateTime lastRunAt;
+
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong archiveReads = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Archive everything that is due, chunk by chunk, stopping early after max-chunks-per-run
+     * so a large backlog is worked off over several nights.
+     */
+    @Scheduled(cron = "${app.orders.archive.cron:0 30 3 * * *}")
+    public synchronized void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+        runs.incrementAndGet();
+        lastRunAt = LocalDateTime.now();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int moved = chunkTransaction.execute(status -> archiveChunk(cutoff));
+                if (moved == 0) {
+                    break;
+                }
+                total += moved;
+                chunks.incrementAndGet();
+                archived.addAndGet(moved);
+                Thread.sleep(chunkPauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            System.err.println("Order archival stopped after " + total + " orders: " + e.getMessage());
+        }
+        if (total > 0) {
+            System.out.println("Archived " + total + " orders created before " + cutoff);
+        }
+    }
+
+    public Optional<OrderResponse> findById(String id) {
+        return read(FIND_BY_ID_SQL, id);
+    }
+
+    public Optional<OrderResponse> findByOrderNumber(String orderNumber) {
+        return read(FIND_BY_ORDER_NUMBER_SQL, orderNumber);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("afterDays", afterDays);
+        stats.put("runs", runs.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("chunks", chunks.get());
+        stats.put("archived", archived.get());
+        stats.put("failures", failures.get());
+        stats.put("archiveReads", archiveReads.get());
+        return stats;
+    }
+
+    // Lock the chunk's orders, copy the ones still finished into the archive, then delete them with their rows
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<String> candidateIds = jdbcTemplate.queryForList(CANDIDATES_SQL, String.class,
+                Timestamp.valueOf(cutoff), chunkSize);
+        if (candidateIds.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> ids = new ArrayList<>(candidateIds.size());
+        List<Object[]> rows = new ArrayList<>(candidateIds.size());
+        for (Order order : orderRepository.findByIdInForUpdate(candidateIds)) {
+            if (!ARCHIVABLE_STATUSES.contains(order.getStatus())) {
+                continue;
+            }
+            ids.add(order.getId());
+            rows.add(new Object[]{order.getId(), order.getOrderNumber(), order.getUser().getId(),
+                    order.getStatus().name(), order.getTotal(), Timestamp.valueOf(order.getCreatedAt()), now,
+                    toJson(new OrderResponse(order))});
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        String inList = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + inList + ")", args);
+        jdbcTemplate.update("DELETE FROM manufacturer_orders WHERE order_id IN (" + inList + ")", args);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (" + inList + ")", args);
+        return ids.size();
+    }
+
+    private Optional<OrderResponse> read(String sql, String key) {
+        List<String> payloads = jdbcTemplate.queryForList(sql, String.class, key);
+        if (payloads.isEmpty()) {
+            return Optional.empty();
+        }
+        archiveReads.incrementAndGet();
+        try {
+            return Optional.of(objectMapper.readValue(payloads.get(0), OrderResponse.class));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read archived order: " + key, e);
+        }
+    }
+
+    private String toJson(OrderResponse order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to archive order: " + order.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: "ORD" followed by a 63-bit id made of a 41-bit millisecond
+ * timestamp, a 10-bit node id and a 12-bit per-millisecond sequence. Ids are unique across nodes
+ * with distinct node ids and strictly increasing per node, with no database round-trip.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    public static final String PREFIX = "ORD";
+
+    // Custom epoch (2024-01-01T00:00:00Z) keeps the 41-bit timestamp good for ~69 years
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    @Value("${app.orders.node-id:-1}")
+    private long configuredNodeId;
+
+    private long nodeId;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence), advanced with CAS
+    private final AtomicLong lastState = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId > MAX_NODE_ID) {
+                throw new IllegalStateException("app.orders.node-id must be between 0 and " + MAX_NODE_ID);
+            }
+            nodeId = configuredNodeId;
+        } else {
+            nodeId = deriveNodeId();
+            System.out.println("Order number node id not configured, derived " + nodeId
+                    + " from the host name; set app.orders.node-id when running several instances");
+        }
+    }
+
+    public String nextOrderNumber() {
+        return PREFIX + nextId();
+    }
+
+    /**
+     * Lock-free: when the clock has not moved (or went backwards) the sequence is bumped instead,
+     * and a full sequence rolls over into the next millisecond, so ids never repeat or go back.
+     */
+    public long nextId() {
+        while (true) {
+            long previous = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = Math.max(now << SEQUENCE_BITS, previous + 1);
+            if (lastState.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private long deriveNodeId() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.OrderRequest;
+import com.crackersbazaar.dto.OrderResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accept-then-process order placement. Validated requests get an order id and idempotency key
+ * up front and wait on a bounded queue; worker threads drain it and commit several orders per
+ * transaction, falling back to one transaction per order when any order in a batch fails.
+ * Resubmitting with the same idempotency key returns the same pending (or placed) order.
+ */
+@Component
+public class OrderPlacementPipeline {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.orders.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.orders.async.workers:2}")
+    private int workers;
+
+    @Value("${app.orders.async.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.orders.async.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private BlockingQueue<PendingOrder> queue;
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+
+    private final Map<String, PendingOrder> byOrderId = new ConcurrentHashMap<>();
+    private final Map<String, PendingOrder> byKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchFallbacks = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-placement");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::work);
+        }
+    }
+
+    // Stop taking work, then give the workers a bounded time to drain what was already accepted
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            System.err.println("Order placement queue not drained on shutdown, " + queue.size() + " orders left");
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue an already-validated order. Throws IllegalStateException when the queue is full.
+     */
+    public PendingOrder submit(OrderRequest request, String userId, String idempotencyKey) {
+        String key = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        String scopedKey = userId + ":" + key;
+
+        PendingOrder existing = byKey.get(scopedKey);
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            return existing;
+        }
+        Optional<OrderResponse> placed = orderService.getOrderByIdempotencyKey(userId, key);
+        if (placed.isPresent()) {
+            duplicates.incrementAndGet();
+            PendingOrder pending = PendingOrder.completed(placed.get(), key);
+            byKey.putIfAbsent(scopedKey, pending);
+            return pending;
+        }
+
+        PendingOrder pending = new PendingOrder(UUID.randomUUID().toString(), userId, key, request);
+        existing = byKey.putIfAbsent(scopedKey, pending);
+        if (existing != null) {
+            duplicates.incrementAndGet();
+            return existing;
+        }
+        byOrderId.put(pending.getOrderId(), pending);
+        if (!running || !queue.offer(pending)) {
+            byOrderId.remove(pending.getOrderId());
+            byKey.remove(scopedKey, pending);
+            rejected.incrementAndGet();
+            throw new IllegalStateException("Order queue is full, please retry shortly");
+        }
+        accepted.incrementAndGet();
+        return pending;
+    }
+
+    public PendingOrder getPending(String orderId) {
+        return byOrderId.get(orderId);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        byOrderId.values().removeIf(pending -> pending.isFinished() && pending.getFinishedAt().isBefore(cutoff));
+        byKey.values().removeIf(pending -> pending.isFinished() && pending.getFinishedAt().isBefore(cutoff));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue != null ? queue.size() : 0);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", accepted.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("batchFallbacks", batchFallbacks.get());
+        return stats;
+    }
+
+    private void work() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingOrder> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Order placement worker error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void process(List<PendingOrder> batch) {
+        batch.forEach(PendingOrder::processing);
+        if (batch.size() > 1) {
+            try {
+                List<OrderResponse> placed = transactionTemplate.execute(status -> {
+                    List<OrderResponse> responses = new ArrayList<>(batch.size());
+                    for (PendingOrder pending : batch) {
+                        responses.add(place(pending));
+                    }
+                    return responses;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).complete(placed.get(i));
+                }
+                batches.incrementAndGet();
+                completed.addAndGet(batch.size());
+                return;
+            } catch (Exception e) {
+                // One bad order rolls back the whole batch; place them one by one to isolate it
+                batchFallbacks.incrementAndGet();
+            }
+        }
+        for (PendingOrder pending : batch) {
+            try {
+                pending.complete(transactionTemplate.execute(status -> place(pending)));
+                completed.incrementAndGet();
+            } catch (DataIntegrityViolationException e) {
+                // Same key placed by a concurrent sync request (or before a restart): that order is the result
+                Optional<OrderResponse> existing = OrderService.isIdempotencyKeyConflict(e)
+                        ? orderService.getOrderByIdempotencyKey(pending.getUserId(), pending.getIdempotencyKey())
+                        : Optional.empty();
+                if (existing.isPresent()) {
+                    duplicates.incrementAndGet();
+                    pending.complete(existing.get());
+                } else {
+                    failed.incrementAndGet();
+                    pending.fail(e.getMessage());
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                pending.fail(e.getMessage());
+            }
+        }
+    }
+
+    private OrderResponse place(PendingOrder pending) {
+        return orderService.createOrder(pending.getRequest(), pending.getUserId(),
+                pending.getOrderId(), pending.getIdempotencyKey());
+    }
+}
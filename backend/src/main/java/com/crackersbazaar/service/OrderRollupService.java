@@ -0,0 +1,190 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.entity.ManufacturerOrder;
+import com.crackersbazaar.entity.Order;
+import com.crackersbazaar.entity.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Incrementally maintained order aggregates in the order_rollups table, one set of counters
+ * per user, manufacturer, creation day and status. Deltas are upserted in the same transaction
+ * as the order change, so the stats endpoints read a handful of rows instead of the order history.
+ *
+ * Every scope tracks: orders in scope, their amount excluding cancelled orders, and how many
+ * (and how much) are delivered. Manufacturer amounts are the manufacturer's own lines only.
+ * Each counter is split over a few shard rows so hot keys (today, PENDING) do not serialize checkouts.
+ */
+@Service
+@Transactional
+public class OrderRollupService {
+
+    public static final String USER = "USER";
+    public static final String MANUFACTURER = "MANUFACTURER";
+    public static final String DAY = "DAY";
+    public static final String STATUS = "STATUS";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_rollups (scope, scope_id, shard, order_count, total_amount, delivered_count, delivered_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "order_count = order_count + VALUES(order_count), " +
+            "total_amount = total_amount + VALUES(total_amount), " +
+            "delivered_count = delivered_count + VALUES(delivered_count), " +
+            "delivered_amount = delivered_amount + VALUES(delivered_amount)";
+
+    private static final String TOTALS_SQL =
+            "SELECT COALESCE(SUM(order_count), 0), COALESCE(SUM(total_amount), 0), " +
+            "COALESCE(SUM(delivered_count), 0), COALESCE(SUM(delivered_amount), 0) " +
+            "FROM order_rollups WHERE scope = ? AND scope_id = ?";
+
+    private static final String DAILY_SQL =
+            "SELECT scope_id, SUM(order_count), SUM(total_amount), SUM(delivered_count), SUM(delivered_amount) " +
+            "FROM order_rollups WHERE scope = 'DAY' AND scope_id BETWEEN ? AND ? GROUP BY scope_id ORDER BY scope_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.orders.rollups.shards:8}")
+    private int shards;
+
+    /**
+     * Counts a newly placed order. Expects the order's manufacturer inbox rows to be attached and
+     * its createdAt stamped, so it lands on the same day later status changes will look up.
+     */
+    public void recordPlaced(Order order) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        enter(deltas, order, order.getStatus(), creationDay(order));
+        apply(deltas);
+    }
+
+    public void recordStatusChange(Order order, OrderStatus from, OrderStatus to) {
+        recordStatusChanges(List.of(order), from, to);
+    }
+
+    /**
+     * Moves orders from one status to another in every scope, written as one upsert batch.
+     */
+    public void recordStatusChanges(Collection<Order> orders, OrderStatus from, OrderStatus to) {
+        if (from == to || orders.isEmpty()) {
+            return;
+        }
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (Order order : orders) {
+            LocalDate day = creationDay(order);
+            leave(deltas, order, from, day);
+            enter(deltas, order, to, day);
+        }
+        apply(deltas);
+    }
+
+    public void recordRemoved(Order order) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        leave(deltas, order, order.getStatus(), creationDay(order));
+        apply(deltas);
+    }
+
+    @Transactional(readOnly = true)
+    public Totals getTotals(String scope, String scopeId) {
+        return jdbcTemplate.queryForObject(TOTALS_SQL, (rs, rowNum) -> new Totals(
+                rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3), rs.getBigDecimal(4)), scope, scopeId);
+    }
+
+    /**
+     * Per-day totals for orders created between {@code from} and {@code to}, inclusive. Days without orders are omitted.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Totals> getDailyTotals(LocalDate from, LocalDate to) {
+        Map<String, Totals> days = new LinkedHashMap<>();
+        jdbcTemplate.query(DAILY_SQL, rs -> {
+            days.put(rs.getString(1), new Totals(rs.getLong(2), rs.getBigDecimal(3), rs.getLong(4), rs.getBigDecimal(5)));
+        }, from.toString(), to.toString());
+        return days;
+    }
+
+    private void enter(Map<String, Delta> deltas, Order order, OrderStatus status, LocalDate day) {
+        contribute(deltas, order, status, day, 1);
+    }
+
+    private void leave(Map<String, Delta> deltas, Order order, OrderStatus status, LocalDate day) {
+        contribute(deltas, order, status, day, -1);
+    }
+
+    private void contribute(Map<String, Delta> deltas, Order order, OrderStatus status, LocalDate day, int sign) {
+        BigDecimal total = order.getTotal() != null ? order.getTotal() : BigDecimal.ZERO;
+        add(deltas, USER, order.getUser().getId(), status, total, sign);
+        add(deltas, DAY, day.toString(), status, total, sign);
+        add(deltas, STATUS, status.name(), status, total, sign);
+        for (ManufacturerOrder manufacturerOrder : order.getManufacturerOrders()) {
+            add(deltas, MANUFACTURER, manufacturerOrder.getManufacturerId(), status,
+                    manufacturerOrder.getManufacturerSubtotal(), sign);
+        }
+    }
+
+    private void add(Map<String, Delta> deltas, String scope, String scopeId, OrderStatus status, BigDecimal amount, int sign) {
+        Delta delta = deltas.computeIfAbsent(scope + "|" + scopeId, k -> new Delta(scope, scopeId));
+        BigDecimal signed = sign > 0 ? amount : amount.negate();
+        delta.orderCount += sign;
+        if (status != OrderStatus.CANCELLED) {
+            delta.totalAmount = delta.totalAmount.add(signed);
+        }
+        if (status == OrderStatus.DELIVERED) {
+            delta.deliveredCount += sign;
+            delta.deliveredAmount = delta.deliveredAmount.add(signed);
+        }
+    }
+
+    // Rows are written in key order so concurrent transactions lock them in the same sequence
+    private void apply(Map<String, Delta> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Delta delta : deltas.values()) {
+            if (delta.isZero()) {
+                continue;
+            }
+            rows.add(new Object[]{delta.scope, delta.scopeId, ThreadLocalRandom.current().nextInt(shards),
+                    delta.orderCount, delta.totalAmount, delta.deliveredCount, delta.deliveredAmount});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        }
+    }
+
+    private LocalDate creationDay(Order order) {
+        return order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+    }
+
+    private static class Delta {
+        private final String scope;
+        private final String scopeId;
+        private long orderCount;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+        private long deliveredCount;
+        private BigDecimal deliveredAmount = BigDecimal.ZERO;
+
+        Delta(String scope, String scopeId) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+        }
+
+        boolean isZero() {
+            return orderCount == 0 && totalAmount.signum() == 0 && deliveredCount == 0 && deliveredAmount.signum() == 0;
+        }
+    }
+
+    /**
+     * Aggregates for one scope: orders, amount excluding cancelled orders, delivered orders and amount.
+     */
+    public record Totals(long orderCount, BigDecimal totalAmount, long deliveredCount, BigDecimal deliveredAmount) {}
+}
@@ -4,21 +4,57 @@ import com.crackersbazaar.dto.*;
 import com.crackersbazaar.entity.*;
 import com.crackersbazaar.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService {
     
+    // Take stock only when enough is left; the version bump makes concurrent entity updates of the product conflict
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND stock_quantity >= ?";
+    
+    private static final String RESTORE_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, updated_at = ?, version = version + 1 WHERE id = ?";
+    
+    // Unique key on orders (user_id, idempotency_key), as named in Order and the schema scripts
+    private static final String IDEMPOTENCY_KEY_CONSTRAINT = "uk_orders_user_idempotency_key";
+    
+    // Timestamp column stamped when a bulk update moves orders into the status
+    private static final Map<OrderStatus, String> STATUS_TIMESTAMP_COLUMNS = Map.of(
+            OrderStatus.SHIPPED, "shipped_at",
+            OrderStatus.DELIVERED, "delivered_at",
+            OrderStatus.CANCELLED, "cancelled_at");
+    
+    private static final Set<String> INBOX_SORT_PROPERTIES = Set.of("createdAt", "status", "manufacturerSubtotal");
+    
     @Autowired
     private OrderRepository orderRepository;
     
@@ -31,16 +67,56 @@ public class OrderService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ManufacturerOrderRepository manufacturerOrderRepository;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OptimisticLockRetry optimisticLockRetry;
+    
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+    
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private OrderRollupService orderRollupService;
+    
+    @Autowired
+    private OrderArchive orderArchive;
+    
     public OrderResponse createOrder(OrderRequest request, String userId) {
+        return createOrder(request, userId, java.util.UUID.randomUUID().toString(), null);
+    }
+    
+    /**
+     * Place an order under a pre-assigned id, used by the async pipeline so the id can be handed
+     * to the client before the order exists. The idempotency key (may be null) is stored on the order.
+     */
+    public OrderResponse createOrder(OrderRequest request, String userId, String orderId, String idempotencyKey) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
+        // Load every product on the order with a single query
+        Map<String, Product> products = loadProducts(request.getItems());
+        
         // Validate and calculate order totals
         BigDecimal subtotal = BigDecimal.ZERO;
         
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + itemRequest.getProductId()));
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found with id: " + itemRequest.getProductId());
+            }
             
             // Check stock availability
             if (product.getStockQuantity() < itemRequest.getQuantity()) {
@@ -58,6 +134,15 @@ public class OrderService {
             subtotal = subtotal.add(itemTotal);
         }
         
+        if (stockReservationLedger.isEnabled()) {
+            // Flash-sale mode: take the stock from the in-memory ledger, which writes it back in batches
+            stockReservationLedger.takeForOrder(userId, request.getReservationId(), aggregateQuantities(request.getItems()));
+        } else {
+            // Take the stock with one JDBC batch of conditional UPDATEs, in product id order so that
+            // concurrent orders lock rows in the same sequence. Zero rows updated means the stock ran out
+            reserveStock(request.getItems(), products);
+        }
+        
         // Calculate total
         BigDecimal shippingCost = request.getShippingCost() != null ? request.getShippingCost() : BigDecimal.ZERO;
         BigDecimal discount = request.getDiscount() != null ? request.getDiscount() : BigDecimal.ZERO;
@@ -65,11 +150,12 @@ public class OrderService {
         BigDecimal total = subtotal.add(shippingCost).add(tax).subtract(discount);
         
         // Generate order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = orderNumberGenerator.nextOrderNumber();
         
         // Create order
         Order order = new Order();
-        order.setId(java.util.UUID.randomUUID().toString()); // Generate UUID for the order
+        order.setId(orderId);
+        order.setIdempotencyKey(idempotencyKey);
         order.setUser(user);
         order.setOrderNumber(orderNumber);
         order.setStatus(OrderStatus.PENDING);
@@ -93,43 +179,75 @@ public class OrderService {
         order.setPaymentMethod(request.getPaymentMethod());
         order.setPaymentStatus("PENDING");
         order.setNotes(request.getNotes());
+        // Stamped here rather than at flush, so the rollup day below is the day the order row carries
+        order.setCreatedAt(LocalDateTime.now());
         
-        // Save order first to get the ID
-        Order savedOrder = orderRepository.save(order);
-        
-        // Create order items and update product stock
+        // Create order items
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            Product product = products.get(itemRequest.getProductId());
             
             BigDecimal unitPrice = product.getPrice();
             BigDecimal itemTotal = unitPrice.multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
             
-            OrderItem orderItem = new OrderItem(savedOrder, product, itemRequest.getQuantity(), unitPrice, itemTotal);
+            OrderItem orderItem = new OrderItem(order, product, itemRequest.getQuantity(), unitPrice, itemTotal);
             orderItem.setId(java.util.UUID.randomUUID().toString()); // Generate UUID for the order item
-            savedOrder.addOrderItem(orderItem);
-            
-            // Update product stock
-            product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
-            productRepository.save(product);
+            order.addOrderItem(orderItem);
         }
         
-        // Save order with items
-        Order finalOrder = orderRepository.save(savedOrder);
+        // One inbox row per manufacturer on the order, carrying that manufacturer's share
+        addManufacturerOrders(order, products);
+        orderRollupService.recordPlaced(order);
         
-        return new OrderResponse(finalOrder);
+        // Save once: a new order (null version) is persisted, cascading to its items, so the order
+        // and item rows go out as one insert batch at flush with no existence SELECTs
+        Order savedOrder = orderRepository.save(order);
+        
+        return new OrderResponse(savedOrder);
+    }
+    
+    /**
+     * Hold stock for a checkout in flash-sale mode; the returned reservation id is passed back
+     * with the order. Held units return to sale when the reservation expires or is released.
+     */
+    public StockReservationLedger.Reservation reserveStockForCheckout(StockReservationRequest request, String userId) {
+        return stockReservationLedger.reserve(userId, aggregateQuantities(request.getItems()));
+    }
+    
+    public void releaseStockReservation(String reservationId, String userId) {
+        stockReservationLedger.release(reservationId, userId);
     }
     
+    // Orders moved to the archive are still found by id and order number
     public OrderResponse getOrderById(String id) {
-        Order order = orderRepository.findById(id)
+        return orderRepository.findById(id)
+                .map(OrderResponse::new)
+                .or(() -> orderArchive.findById(id))
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        return new OrderResponse(order);
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> getOrderByIdempotencyKey(String userId, String idempotencyKey) {
+        return orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey).map(OrderResponse::new);
+    }
+    
+    /**
+     * True when {@code e} is the (user, idempotency key) unique constraint: a concurrent request with
+     * the same key placed its order first, and the caller should answer with that order.
+     */
+    public static boolean isIdempotencyKeyConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase().contains(IDEMPOTENCY_KEY_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     public OrderResponse getOrderByOrderNumber(String orderNumber) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        return orderRepository.findByOrderNumber(orderNumber)
+                .map(OrderResponse::new)
+                .or(() -> orderArchive.findByOrderNumber(orderNumber))
                 .orElseThrow(() -> new RuntimeException("Order not found with order number: " + orderNumber));
-        return new OrderResponse(order);
     }
     
     public List<OrderResponse> getAllOrders() {
@@ -156,6 +274,19 @@ public class OrderService {
         return orders.map(OrderResponse::new);
     }
     
+    /**
+     * Keyset listing of a user's orders, newest first. An empty cursor returns the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getOrdersByUserIdAfter(String userId, String cursor, int size) {
+        CursorPage.Position position = CursorPage.decode(cursor);
+        List<Order> orders = orderRepository.findByUserIdAfter(userId,
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(orders, size, Order::getCreatedAt, Order::getId, OrderResponse::new);
+    }
+    
     public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
         List<Order> orders = orderRepository.findByStatus(status);
         return orders.stream()
@@ -169,118 +300,210 @@ public class OrderService {
     }
     
     public List<OrderResponse> getOrdersByManufacturerId(String manufacturerId) {
-        List<Order> orders = orderRepository.findOrdersByManufacturerId(manufacturerId);
-        return orders.stream()
-                .map(OrderResponse::new)
-                .collect(Collectors.toList());
+        return loadOrdersInOrder(manufacturerOrderRepository.findOrderIdsByManufacturerId(manufacturerId));
     }
     
+    /**
+     * A manufacturer's orders, paged over the manufacturer_orders inbox rather than the
+     * orders/items/products join. Sorting is limited to the inbox columns; anything else sorts by createdAt.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByManufacturerId(String manufacturerId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findOrdersByManufacturerId(manufacturerId, pageable);
-        return orders.map(OrderResponse::new);
+        Page<String> orderIds = manufacturerOrderRepository.findOrderIdsByManufacturerId(manufacturerId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), inboxSort(pageable.getSort())));
+        return new PageImpl<>(loadOrdersInOrder(orderIds.getContent()), orderIds.getPageable(), orderIds.getTotalElements());
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponse updateOrderStatus(String id, OrderStatusUpdateRequest request) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        return optimisticLockRetry.execute("order.updateStatus", () -> {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
         
-        OrderStatus oldStatus = order.getStatus();
-        OrderStatus newStatus = request.getStatus();
+            OrderStatus oldStatus = order.getStatus();
+            OrderStatus newStatus = request.getStatus();
         
-        // Validate status transition
-        validateStatusTransition(oldStatus, newStatus);
+            // Validate status transition
+            validateStatusTransition(oldStatus, newStatus);
         
-        order.setStatus(newStatus);
+            order.setStatus(newStatus);
+            manufacturerOrderRepository.updateStatusByOrderId(id, newStatus);
+            orderRollupService.recordStatusChange(order, oldStatus, newStatus);
         
-        // Update timestamps based on status
-        switch (newStatus) {
-            case SHIPPED:
-                order.setShippedAt(LocalDateTime.now());
-                if (request.getTrackingNumber() != null) {
-                    order.setTrackingNumber(request.getTrackingNumber());
-                }
-                break;
-            case DELIVERED:
-                order.setDeliveredAt(LocalDateTime.now());
-                break;
-            case CANCELLED:
-                order.setCancelledAt(LocalDateTime.now());
-                if (request.getCancellationReason() != null) {
-                    order.setCancellationReason(request.getCancellationReason());
-                }
-                // Restore product stock
-                restoreProductStock(order);
-                break;
-        }
+            // Update timestamps based on status
+            switch (newStatus) {
+                case SHIPPED:
+                    order.setShippedAt(LocalDateTime.now());
+                    if (request.getTrackingNumber() != null) {
+                        order.setTrackingNumber(request.getTrackingNumber());
+                    }
+                    break;
+                case DELIVERED:
+                    order.setDeliveredAt(LocalDateTime.now());
+                    break;
+                case CANCELLED:
+                    order.setCancelledAt(LocalDateTime.now());
+                    if (request.getCancellationReason() != null) {
+                        order.setCancellationReason(request.getCancellationReason());
+                    }
+                    // Restore product stock
+                    restoreProductStock(order);
+                    break;
+            }
         
-        if (request.getNotes() != null) {
-            String existingNotes = order.getNotes() != null ? order.getNotes() + "\n" : "";
-            order.setNotes(existingNotes + request.getNotes());
-        }
+            if (request.getNotes() != null) {
+                String existingNotes = order.getNotes() != null ? order.getNotes() + "\n" : "";
+                order.setNotes(existingNotes + request.getNotes());
+            }
         
-        Order savedOrder = orderRepository.save(order);
-        return new OrderResponse(savedOrder);
+            Order savedOrder = orderRepository.save(order);
+            return new OrderResponse(savedOrder);
+        });
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponse cancelOrder(String id, String reason) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        return optimisticLockRetry.execute("order.cancel", () -> {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
         
-        // Only allow cancellation for certain statuses
-        if (order.getStatus() == OrderStatus.DELIVERED || 
-            order.getStatus() == OrderStatus.CANCELLED ||
-            order.getStatus() == OrderStatus.REFUNDED) {
-            throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
-        }
+            // Only allow cancellation for certain statuses
+            if (order.getStatus() == OrderStatus.DELIVERED || 
+                order.getStatus() == OrderStatus.CANCELLED ||
+                order.getStatus() == OrderStatus.REFUNDED) {
+                throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
+            }
         
-        order.setStatus(OrderStatus.CANCELLED);
-        order.setCancelledAt(LocalDateTime.now());
-        order.setCancellationReason(reason);
+            OrderStatus oldStatus = order.getStatus();
+            order.setStatus(OrderStatus.CANCELLED);
+            order.setCancelledAt(LocalDateTime.now());
+            order.setCancellationReason(reason);
+            manufacturerOrderRepository.updateStatusByOrderId(id, OrderStatus.CANCELLED);
+            orderRollupService.recordStatusChange(order, oldStatus, OrderStatus.CANCELLED);
         
-        // Restore product stock
-        restoreProductStock(order);
+            // Restore product stock
+            restoreProductStock(order);
         
-        Order savedOrder = orderRepository.save(order);
-        return new OrderResponse(savedOrder);
+            Order savedOrder = orderRepository.save(order);
+            return new OrderResponse(savedOrder);
+        });
     }
     
-    public void deleteOrder(String id) {
-        if (!orderRepository.existsById(id)) {
-            throw new RuntimeException("Order not found with id: " + id);
+    /**
+     * Move many orders to one status. Each order is validated on its own and invalid ones are reported
+     * rather than failing the batch; valid ones get one set-based UPDATE per current status, and
+     * cancellations return their stock as one batch of per-product deltas.
+     * With a {@code manufacturerId}, only orders in that manufacturer's inbox are touched; the rest
+     * are reported as not permitted.
+     */
+    public BulkOrderStatusUpdateResponse updateOrderStatuses(BulkOrderStatusUpdateRequest request, String manufacturerId) {
+        OrderStatus newStatus = request.getStatus();
+        List<String> orderIds = request.getOrderIds().stream().distinct().collect(Collectors.toList());
+        
+        Set<String> permitted = manufacturerId == null
+                ? new HashSet<>(orderIds)
+                : new HashSet<>(manufacturerOrderRepository.findOrderIdsByManufacturerIdAndOrderIdIn(manufacturerId, orderIds));
+        
+        // Row locks keep the orders from changing between validation and the UPDATE
+        Map<String, Order> orders = permitted.isEmpty() ? Map.of() : orderRepository.findByIdInForUpdate(permitted).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        
+        BulkOrderStatusUpdateResponse response = new BulkOrderStatusUpdateResponse(newStatus);
+        Map<OrderStatus, List<Order>> byStatus = new EnumMap<>(OrderStatus.class);
+        for (String id : orderIds) {
+            if (!permitted.contains(id)) {
+                response.addResult(BulkOrderStatusUpdateResponse.Result.failed(id, null, null,
+                        "Not permitted to update order with id: " + id));
+                continue;
+            }
+            Order order = orders.get(id);
+            if (order == null) {
+                response.addResult(BulkOrderStatusUpdateResponse.Result.failed(id, null, null,
+                        "Order not found with id: " + id));
+                continue;
+            }
+            try {
+                validateStatusTransition(order.getStatus(), newStatus);
+            } catch (RuntimeException e) {
+                response.addResult(BulkOrderStatusUpdateResponse.Result.failed(id, order.getOrderNumber(),
+                        order.getStatus(), e.getMessage()));
+                continue;
+            }
+            if (order.getStatus() != newStatus) {
+                byStatus.computeIfAbsent(order.getStatus(), status -> new ArrayList<>()).add(order);
+            }
+            response.addResult(BulkOrderStatusUpdateResponse.Result.updated(id, order.getOrderNumber(), order.getStatus()));
         }
-        orderRepository.deleteById(id);
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<String> changedIds = new ArrayList<>();
+        for (Map.Entry<OrderStatus, List<Order>> group : byStatus.entrySet()) {
+            List<String> ids = group.getValue().stream().map(Order::getId).collect(Collectors.toList());
+            int updated = updateStatusFrom(group.getKey(), ids, newStatus, request.getCancellationReason(), now);
+            if (updated != ids.size()) {
+                throw new RuntimeException("Orders were modified concurrently, please try again");
+            }
+            orderRollupService.recordStatusChanges(group.getValue(), group.getKey(), newStatus);
+            changedIds.addAll(ids);
+        }
+        
+        if (!changedIds.isEmpty()) {
+            manufacturerOrderRepository.updateStatusByOrderIdIn(changedIds, newStatus);
+            if (newStatus == OrderStatus.CANCELLED) {
+                Map<String, Integer> quantities = new TreeMap<>();
+                for (Object[] row : orderItemRepository.sumQuantityByProductForOrders(changedIds)) {
+                    quantities.put((String) row[0], ((Number) row[1]).intValue());
+                }
+                restoreStock(quantities);
+            }
+        }
+        return response;
     }
     
+    public void deleteOrder(String id) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        orderRollupService.recordRemoved(order);
+        orderRepository.delete(order);
+    }
+    
+    // Order stats are served from the incrementally maintained rollups, not aggregated over order history
+    
     public Long getOrderCountByUserId(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return orderRepository.countByUser(user);
+        return orderRollupService.getTotals(OrderRollupService.USER, userId).orderCount();
     }
     
     public Long getOrderCountByStatus(OrderStatus status) {
-        return orderRepository.countByStatus(status);
+        return orderRollupService.getTotals(OrderRollupService.STATUS, status.name()).orderCount();
     }
     
     public Double getTotalSpentByUser(String userId) {
-        Double total = orderRepository.getTotalSpentByUser(userId);
-        return total != null ? total : 0.0;
+        return orderRollupService.getTotals(OrderRollupService.USER, userId).totalAmount().doubleValue();
     }
     
+    /**
+     * Revenue from delivered orders, counting only this manufacturer's own line items.
+     */
     public Double getTotalRevenueByManufacturer(String manufacturerId) {
-        Double total = orderRepository.getTotalRevenueByManufacturer(manufacturerId);
-        return total != null ? total : 0.0;
+        return orderRollupService.getTotals(OrderRollupService.MANUFACTURER, manufacturerId).deliveredAmount().doubleValue();
     }
     
     public Long getOrderCountByManufacturer(String manufacturerId) {
-        return orderRepository.countOrdersByManufacturerId(manufacturerId);
+        return orderRollupService.getTotals(OrderRollupService.MANUFACTURER, manufacturerId).orderCount();
+    }
+    
+    public Map<String, OrderRollupService.Totals> getDailyOrderTotals(LocalDate from, LocalDate to) {
+        return orderRollupService.getDailyTotals(from, to);
     }
     
     // Helper methods
     
-    private String generateOrderNumber() {
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-        return "ORD" + now.format(formatter) + String.format("%04d", (int)(Math.random() * 10000));
+    private Map<String, Product> loadProducts(List<OrderItemRequest> items) {
+        Set<String> productIds = items.stream()
+                .map(OrderItemRequest::getProductId)
+                .collect(Collectors.toSet());
+        return productRepository.findByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
     }
     
     private void validateStatusTransition(OrderStatus oldStatus, OrderStatus newStatus) {
@@ -296,12 +519,110 @@ public class OrderService {
         }
     }
     
+    private void addManufacturerOrders(Order order, Map<String, Product> products) {
+        Map<String, BigDecimal> subtotals = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            String manufacturerId = products.get(item.getProduct().getId()).getManufacturer().getId();
+            subtotals.merge(manufacturerId, item.getTotalPrice(), BigDecimal::add);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        subtotals.forEach((manufacturerId, subtotal) -> {
+            ManufacturerOrder manufacturerOrder = new ManufacturerOrder(order, manufacturerId, subtotal, now);
+            manufacturerOrder.setId(java.util.UUID.randomUUID().toString());
+            order.addManufacturerOrder(manufacturerOrder);
+        });
+    }
+    
+    // Fetch orders for a list of ids and return them in that order
+    private List<OrderResponse> loadOrdersInOrder(List<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Order> orders = orderRepository.findByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return orderIds.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(OrderResponse::new)
+                .collect(Collectors.toList());
+    }
+    
+    private Sort inboxSort(Sort requested) {
+        List<Sort.Order> orders = requested.stream()
+                .filter(order -> INBOX_SORT_PROPERTIES.contains(order.getProperty()))
+                .collect(Collectors.toList());
+        return orders.isEmpty() ? Sort.by(Sort.Direction.DESC, "createdAt") : Sort.by(orders);
+    }
+    
+    private Map<String, Integer> aggregateQuantities(List<OrderItemRequest> items) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
+    private void reserveStock(List<OrderItemRequest> items, Map<String, Product> products) {
+        Map<String, Integer> quantities = aggregateQuantities(items);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[]{quantity, now, productId, quantity}));
+        
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, rows);
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (updated[i++] == 0) {
+                throw new RuntimeException("Insufficient stock for product: " + products.get(entry.getKey()).getName() +
+                        ". Requested: " + entry.getValue());
+            }
+        }
+        quantities.keySet().forEach(productCache::evict);
+        catalogVersion.bumpAfterCommit();
+    }
+    
     private void restoreProductStock(Order order) {
+        Map<String, Integer> quantities = new TreeMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        restoreStock(quantities);
+    }
+    
+    // Return units (product id -> quantity) to stock in one JDBC batch, in product id order
+    private void restoreStock(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        new TreeMap<>(quantities).forEach((productId, quantity) -> rows.add(new Object[]{quantity, now, productId}));
+        jdbcTemplate.batchUpdate(RESTORE_STOCK_SQL, rows);
+        quantities.forEach((productId, quantity) -> {
+            productCache.evict(productId);
+            stockReservationLedger.adjustAfterCommit(productId, quantity);
+        });
+        catalogVersion.bumpAfterCommit();
+    }
+    
+    // One UPDATE for every order in the group; the status predicate makes it a no-op for rows that moved on
+    private int updateStatusFrom(OrderStatus fromStatus, List<String> orderIds, OrderStatus newStatus,
+                                 String cancellationReason, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        StringBuilder sql = new StringBuilder("UPDATE orders SET status = ?, updated_at = ?, version = version + 1");
+        List<Object> args = new ArrayList<>(List.of(newStatus.name(), timestamp));
+        String timestampColumn = STATUS_TIMESTAMP_COLUMNS.get(newStatus);
+        if (timestampColumn != null) {
+            sql.append(", ").append(timestampColumn).append(" = ?");
+            args.add(timestamp);
+        }
+        if (newStatus == OrderStatus.CANCELLED && cancellationReason != null) {
+            sql.append(", cancellation_reason = ?");
+            args.add(cancellationReason);
         }
+        sql.append(" WHERE status = ? AND id IN (").append(String.join(", ", Collections.nCopies(orderIds.size(), "?"))).append(")");
+        args.add(fromStatus.name());
+        args.addAll(orderIds);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
     }
 }
 
@@ -0,0 +1,110 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.OrderRequest;
+import com.crackersbazaar.dto.OrderResponse;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An order accepted by the async placement pipeline. Serialized as-is while the order is
+ * being processed; once completed, the order itself is served from the database.
+ */
+public class PendingOrder {
+
+    public enum Status {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    private final String orderId;
+    private final String userId;
+    private final String idempotencyKey;
+    private final OrderRequest request;
+    private final LocalDateTime acceptedAt = LocalDateTime.now();
+    private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String orderNumber;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    PendingOrder(String orderId, String userId, String idempotencyKey, OrderRequest request) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.request = request;
+    }
+
+    // An order committed before this process saw the key, e.g. submitted before a restart
+    static PendingOrder completed(OrderResponse order, String idempotencyKey) {
+        PendingOrder pending = new PendingOrder(order.getId(), order.getUserId(), idempotencyKey, null);
+        pending.complete(order);
+        return pending;
+    }
+
+    OrderRequest getRequest() {
+        return request;
+    }
+
+    void processing() {
+        status = Status.PROCESSING;
+    }
+
+    void complete(OrderResponse order) {
+        orderNumber = order.getOrderNumber();
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+        result.complete(order);
+    }
+
+    void fail(String reason) {
+        error = reason;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+        result.completeExceptionally(new RuntimeException(reason));
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Completes with the placed order, or exceptionally with the reason it was rejected.
+     */
+    public CompletableFuture<OrderResponse> awaitResult() {
+        return result;
+    }
+
+    // Getters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+}
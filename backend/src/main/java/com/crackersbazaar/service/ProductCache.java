@@ -0,0 +1,256 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of ready-made ProductResponse objects.
+ * Entries are keyed by product id, with SKU and barcode kept as secondary keys,
+ * and are evicted by size (LRU) and by age (TTL). Responses embed manufacturer details,
+ * so manufacturer writes evict every product of that manufacturer.
+ */
+@Component
+public class ProductCache {
+
+    @Value("${app.cache.products.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.products.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.cache.products.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> entriesById = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                removeSecondaryKeys(eldest.getValue().response);
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, String> idsBySku = new HashMap<>();
+
+    private final Map<String, String> idsByBarcode = new HashMap<>();
+
+    // Manufacturer evictions are stamped under their own key space, next to the product ids
+    private static final String MANUFACTURER_STAMP_PREFIX = "manufacturer:";
+
+    // A load racing with a write to its product (or its manufacturer) is not cached, while loads of
+    // other products still are
+    private final InvalidationStamps evictionStamps = new InvalidationStamps(() -> maxSize);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Current invalidation generation. Capture it before loading from the database
+     * and hand it back to {@link #put(ProductResponse, long)}.
+     */
+    public long generation() {
+        return evictionStamps.current();
+    }
+
+    public synchronized Optional<ProductResponse> getById(String id) {
+        return lookup(id);
+    }
+
+    public synchronized Optional<ProductResponse> getBySku(String sku) {
+        return lookup(idsBySku.get(sku));
+    }
+
+    public synchronized Optional<ProductResponse> getByBarcode(String barcode) {
+        return lookup(idsByBarcode.get(barcode));
+    }
+
+    /**
+     * Cache a response unless its product or its manufacturer was invalidated since {@code loadedAtGeneration}.
+     */
+    public synchronized void put(ProductResponse response, long loadedAtGeneration) {
+        if (!enabled || response == null || response.getId() == null) {
+            return;
+        }
+        if (evictionStamps.isStale(response.getId(), loadedAtGeneration)) {
+            return;
+        }
+        if (response.getManufacturerId() != null
+                && evictionStamps.isStale(MANUFACTURER_STAMP_PREFIX + response.getManufacturerId(), loadedAtGeneration)) {
+            return;
+        }
+        Entry previous = entriesById.remove(response.getId());
+        if (previous != null) {
+            removeSecondaryKeys(previous.response);
+        }
+        entriesById.put(response.getId(), new Entry(response, System.currentTimeMillis() + ttlSeconds * 1000));
+        if (response.getSku() != null && !response.getSku().isEmpty()) {
+            idsBySku.put(response.getSku(), response.getId());
+        }
+        if (response.getBarcode() != null && !response.getBarcode().isEmpty()) {
+            idsByBarcode.put(response.getBarcode(), response.getId());
+        }
+    }
+
+    /**
+     * Drop a product now and again once the surrounding transaction commits,
+     * so that readers never re-cache the pre-commit row.
+     */
+    public void evict(String id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop every product of a manufacturer, now and again after the surrounding transaction completes,
+     * after a write to the manufacturer details the cached responses embed.
+     */
+    public void evictManufacturer(String manufacturerId) {
+        evictManufacturerNow(manufacturerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictManufacturerNow(manufacturerId);
+                }
+            });
+        }
+    }
+
+    public void evictAll(Collection<String> ids) {
+        for (String id : ids) {
+            evict(id);
+        }
+    }
+
+    public synchronized void clear() {
+        evictionStamps.invalidateAll();
+        entriesById.clear();
+        idsBySku.clear();
+        idsByBarcode.clear();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        purgeExpired();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entriesById.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("evictionStamps", evictionStamps.size());
+        return stats;
+    }
+
+    private synchronized void evictNow(String id) {
+        evictionStamps.invalidate(id);
+
+        Entry entry = entriesById.remove(id);
+        if (entry != null) {
+            removeSecondaryKeys(entry.response);
+            invalidations.incrementAndGet();
+        }
+    }
+
+    // Manufacturer writes are rare, so a scan of the cached entries is cheaper than a secondary index
+    private synchronized void evictManufacturerNow(String manufacturerId) {
+        evictionStamps.invalidate(MANUFACTURER_STAMP_PREFIX + manufacturerId);
+
+        Iterator<Entry> iterator = entriesById.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (manufacturerId.equals(entry.response.getManufacturerId())) {
+                iterator.remove();
+                removeSecondaryKeys(entry.response);
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private Optional<ProductResponse> lookup(String id) {
+        if (!enabled || id == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        Entry entry = entriesById.get(id);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entriesById.remove(id);
+            removeSecondaryKeys(entry.response);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.response);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entriesById.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isExpired(now)) {
+                iterator.remove();
+                removeSecondaryKeys(entry.response);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeSecondaryKeys(ProductResponse response) {
+        if (response.getSku() != null) {
+            idsBySku.remove(response.getSku(), response.getId());
+        }
+        if (response.getBarcode() != null) {
+            idsByBarcode.remove(response.getBarcode(), response.getId());
+        }
+    }
+
+    private static class Entry {
+        private final ProductResponse response;
+        private final long expiresAt;
+
+        Entry(ProductResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams the product catalog as NDJSON or CSV. Rows are read through a forward-only cursor,
+ * written straight to the output stream and detached, so memory use does not grow with the catalog.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Unsupported export format: " + value);
+        }
+    }
+
+    // Exported columns in output order; image URLs live in a separate table and are not exported
+    private static final Map<String, Function<Product, Object>> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("id", Product::getId);
+        COLUMNS.put("sku", Product::getSku);
+        COLUMNS.put("barcode", Product::getBarcode);
+        COLUMNS.put("name", Product::getName);
+        COLUMNS.put("description", Product::getDescription);
+        COLUMNS.put("category", Product::getCategory);
+        COLUMNS.put("subcategory", Product::getSubcategory);
+        COLUMNS.put("brand", Product::getBrand);
+        COLUMNS.put("modelNumber", Product::getModelNumber);
+        COLUMNS.put("price", Product::getPrice);
+        COLUMNS.put("stockQuantity", Product::getStockQuantity);
+        COLUMNS.put("minOrderQuantity", Product::getMinOrderQuantity);
+        COLUMNS.put("maxOrderQuantity", Product::getMaxOrderQuantity);
+        COLUMNS.put("weight", Product::getWeight);
+        COLUMNS.put("dimensions", Product::getDimensions);
+        COLUMNS.put("color", Product::getColor);
+        COLUMNS.put("material", Product::getMaterial);
+        COLUMNS.put("tags", Product::getTags);
+        COLUMNS.put("warrantyPeriod", Product::getWarrantyPeriod);
+        COLUMNS.put("returnPolicy", Product::getReturnPolicy);
+        COLUMNS.put("shippingInfo", Product::getShippingInfo);
+        COLUMNS.put("isActive", Product::getIsActive);
+        COLUMNS.put("isFeatured", Product::getIsFeatured);
+        COLUMNS.put("manufacturerId", p -> p.getManufacturer() != null ? p.getManufacturer().getId() : null);
+        COLUMNS.put("manufacturerName", p -> p.getManufacturer() != null ? p.getManufacturer().getCompanyName() : null);
+        COLUMNS.put("createdAt", Product::getCreatedAt);
+        COLUMNS.put("updatedAt", Product::getUpdatedAt);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Write every product (or only one manufacturer's when {@code manufacturerId} is set) to {@code out}.
+     * Returns the number of rows written.
+     */
+    public long exportProducts(String manufacturerId, Format format, OutputStream out) throws IOException {
+        try (Stream<Product> products = productRepository.streamForExport(manufacturerId)) {
+            Iterator<Product> rows = products.iterator();
+            return format == Format.CSV ? writeCsv(rows, out) : writeNdjson(rows, out);
+        }
+    }
+
+    private long writeNdjson(Iterator<Product> rows, OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            Product product = rows.next();
+            generator.writeStartObject();
+            for (Map.Entry<String, Function<Product, Object>> column : COLUMNS.entrySet()) {
+                Object value = column.getValue().apply(product);
+                generator.writeFieldName(column.getKey());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    generator.writeObject(value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            entityManager.detach(product);
+            count++;
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Product> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS.keySet()));
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            Product product = rows.next();
+            boolean first = true;
+            for (Function<Product, Object> column : COLUMNS.values()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writer.write(csvField(column.apply(product)));
+                first = false;
+            }
+            writer.write("\r\n");
+            entityManager.detach(product);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180 quoting: wrap in quotes when the value has a separator, quote or line break
+    private String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,330 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory facet index over active products.
+ * Keeps per-product facet values plus running counts by category, subcategory,
+ * brand and price bucket, updated incrementally by ProductService writes.
+ */
+@Component
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String SUBCATEGORY = "subcategory";
+    public static final String BRAND = "brand";
+    public static final String PRICE = "price";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.facets.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.facets.price-buckets:0,100,500,1000,5000}")
+    private String priceBuckets;
+
+    private List<BigDecimal> priceBoundaries = List.of();
+
+    // Bucket labels from the cheapest up, the order price counts are returned in
+    private List<String> priceBucketLabels = List.of();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Running counts for the unfiltered catalog: dimension -> value -> count
+    private final Map<String, Map<String, Long>> totals = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void init() {
+        priceBoundaries = Arrays.stream(priceBuckets.split(","))
+                .map(String::trim)
+                .filter(bound -> !bound.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> labels = new ArrayList<>();
+        if (!priceBoundaries.isEmpty()) {
+            labels.add("0-" + priceBoundaries.get(0).toPlainString());
+            for (int i = 0; i < priceBoundaries.size() - 1; i++) {
+                labels.add(priceBoundaries.get(i).toPlainString() + "-" + priceBoundaries.get(i + 1).toPlainString());
+            }
+            labels.add(priceBoundaries.get(priceBoundaries.size() - 1).toPlainString() + "+");
+        }
+        priceBucketLabels = labels;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reload every product, reading the catalog in id order in fixed-size batches.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        entries.clear();
+        totals.clear();
+
+        List<Product> batch = productRepository.findTop1000ByIdGreaterThanOrderByIdAsc("");
+        while (!batch.isEmpty()) {
+            for (Product product : batch) {
+                apply(product.getId(), toEntry(product));
+            }
+            String lastId = batch.get(batch.size() - 1).getId();
+            batch = productRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+        }
+
+        ready = true;
+        System.out.println("Product facet index built: " + entries.size() + " active products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Add, replace or drop (when inactive) a product once the surrounding transaction commits.
+     */
+    public void updateAfterCommit(Product product) {
+        if (!enabled) {
+            return;
+        }
+        String id = product.getId();
+        Entry entry = toEntry(product);
+        runAfterCommit(() -> apply(id, entry));
+    }
+
+    public void updateAllAfterCommit(Collection<Product> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        Map<String, Entry> updates = new LinkedHashMap<>();
+        for (Product product : products) {
+            updates.put(product.getId(), toEntry(product));
+        }
+        runAfterCommit(() -> updates.forEach(this::apply));
+    }
+
+    public void removeAfterCommit(String id) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> apply(id, null));
+    }
+
+    /**
+     * Facet counts for the active products that match {@code filter}. The unfiltered case is
+     * served from the running totals; free-text searches are counted by ProductSearchIndex.
+     */
+    public Map<String, Map<String, Long>> count(Filter filter) {
+        if (filter.isEmpty()) {
+            synchronized (this) {
+                Map<String, Map<String, Long>> snapshot = new LinkedHashMap<>();
+                for (String dimension : List.of(CATEGORY, SUBCATEGORY, BRAND, PRICE)) {
+                    snapshot.put(dimension, new TreeMap<>(totals.getOrDefault(dimension, Map.of())));
+                }
+                snapshot.put(PRICE, inBucketOrder(snapshot.get(PRICE)));
+                return snapshot;
+            }
+        }
+
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (String dimension : List.of(CATEGORY, SUBCATEGORY, BRAND, PRICE)) {
+            counts.put(dimension, new TreeMap<>());
+        }
+        for (Entry entry : entries.values()) {
+            if (filter.matches(entry)) {
+                increment(counts, entry, 1);
+            }
+        }
+        counts.put(PRICE, inBucketOrder(counts.get(PRICE)));
+        return counts;
+    }
+
+    private synchronized void apply(String id, Entry entry) {
+        Entry previous = entry != null ? entries.put(id, entry) : entries.remove(id);
+        if (previous != null) {
+            increment(totals, previous, -1);
+        }
+        if (entry != null) {
+            increment(totals, entry, 1);
+        }
+    }
+
+    private void increment(Map<String, Map<String, Long>> counts, Entry entry, long delta) {
+        add(counts, CATEGORY, entry.category, delta);
+        add(counts, SUBCATEGORY, entry.subcategory, delta);
+        add(counts, BRAND, entry.brand, delta);
+        add(counts, PRICE, entry.priceBucket, delta);
+    }
+
+    private void add(Map<String, Map<String, Long>> counts, String dimension, String value, long delta) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        Map<String, Long> values = counts.computeIfAbsent(dimension, k -> new HashMap<>());
+        long updated = values.getOrDefault(value, 0L) + delta;
+        if (updated <= 0) {
+            values.remove(value);
+        } else {
+            values.put(value, updated);
+        }
+    }
+
+    // Inactive products are not part of the storefront and are simply left out
+    private Entry toEntry(Product product) {
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            return null;
+        }
+        return new Entry(product.getCategory(), product.getSubcategory(), product.getBrand(),
+                product.getPrice(), priceBucket(product.getPrice()));
+    }
+
+    // Bucket label for a price, e.g. "100-500" or "5000+"
+    String priceBucket(BigDecimal price) {
+        if (price == null || priceBoundaries.isEmpty()) {
+            return null;
+        }
+        for (int i = priceBoundaries.size() - 1; i >= 0; i--) {
+            BigDecimal lower = priceBoundaries.get(i);
+            if (price.compareTo(lower) >= 0) {
+                if (i == priceBoundaries.size() - 1) {
+                    return lower.toPlainString() + "+";
+                }
+                return lower.toPlainString() + "-" + priceBoundaries.get(i + 1).toPlainString();
+            }
+        }
+        return "0-" + priceBoundaries.get(0).toPlainString();
+    }
+
+    // Price bucket counts ordered from the cheapest bucket up, rather than by label text
+    Map<String, Long> inBucketOrder(Map<String, Long> buckets) {
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (String label : priceBucketLabels) {
+            Long count = buckets.get(label);
+            if (count != null) {
+                ordered.put(label, count);
+            }
+        }
+        return ordered;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Entry {
+        private final String category;
+        private final String subcategory;
+        private final String brand;
+        private final BigDecimal price;
+        private final String priceBucket;
+
+        Entry(String category, String subcategory, String brand, BigDecimal price, String priceBucket) {
+            this.category = category;
+            this.subcategory = subcategory;
+            this.brand = brand;
+            this.price = price;
+            this.priceBucket = priceBucket;
+        }
+    }
+
+    /**
+     * Optional facet filters; null fields match everything.
+     */
+    public static class Filter {
+        private final String category;
+        private final String subcategory;
+        private final String brand;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+
+        public Filter(String category, String subcategory, String brand, BigDecimal minPrice, BigDecimal maxPrice) {
+            this.category = category;
+            this.subcategory = subcategory;
+            this.brand = brand;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getSubcategory() {
+            return subcategory;
+        }
+
+        public String getBrand() {
+            return brand;
+        }
+
+        public BigDecimal getMinPrice() {
+            return minPrice;
+        }
+
+        public BigDecimal getMaxPrice() {
+            return maxPrice;
+        }
+
+        public boolean isEmpty() {
+            return category == null && subcategory == null && brand == null && minPrice == null && maxPrice == null;
+        }
+
+        private boolean matches(Entry entry) {
+            if (category != null && !category.equals(entry.category)) {
+                return false;
+            }
+            if (subcategory != null && !subcategory.equals(entry.subcategory)) {
+                return false;
+            }
+            if (brand != null && !brand.equals(entry.brand)) {
+                return false;
+            }
+            if (minPrice != null && (entry.price == null || entry.price.compareTo(minPrice) < 0)) {
+                return false;
+            }
+            if (maxPrice != null && (entry.price == null || entry.price.compareTo(maxPrice) > 0)) {
+                return false;
+            }
+            return true;
+        }
+    }
+}
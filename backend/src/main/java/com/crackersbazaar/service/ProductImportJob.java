@@ -0,0 +1,140 @@
+package com.crackersbazaar.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress and outcome of one bulk product import. Serialized as-is by the import status endpoint.
+ */
+public class ProductImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    // Keep the error report bounded for very large, very broken files
+    private static final int MAX_ERRORS = 1000;
+
+    private final String id;
+    private final String manufacturerId;
+    private final String fileName;
+    private final long fileSize;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long bytesRead;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+
+    private int processedRows;
+    private int importedRows;
+    private int failedRows;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public ProductImportJob(String id, String manufacturerId, String fileName, long fileSize) {
+        this.id = id;
+        this.manufacturerId = manufacturerId;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String reason) {
+        finishedAt = LocalDateTime.now();
+        message = reason;
+        status = Status.FAILED;
+    }
+
+    void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    synchronized void recordImported(int rows) {
+        processedRows += rows;
+        importedRows += rows;
+    }
+
+    synchronized void recordError(int row, String sku, String error) {
+        processedRows++;
+        failedRows++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(row, sku, error));
+        }
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getManufacturerId() {
+        return manufacturerId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getProgressPercent() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        return fileSize > 0 ? (int) Math.min(99, bytesRead * 100 / fileSize) : 0;
+    }
+
+    public synchronized int getProcessedRows() {
+        return processedRows;
+    }
+
+    public synchronized int getImportedRows() {
+        return importedRows;
+    }
+
+    public synchronized int getFailedRows() {
+        return failedRows;
+    }
+
+    public synchronized List<RowError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * One rejected row: its 1-based position in the file (data rows only), SKU if any, and why.
+     */
+    public record RowError(int row, String sku, String error) {}
+}
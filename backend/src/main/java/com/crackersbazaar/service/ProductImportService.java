@@ -0,0 +1,452 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.ProductRequest;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from CSV or JSON (array or newline-delimited).
+ * The upload is staged to a temp file and parsed as a stream on a background worker. Rows are
+ * validated and checked for SKU/barcode conflicts one chunk at a time with a single query, then
+ * inserted with JDBC batching (hibernate.jdbc.batch_size) in one transaction per chunk.
+ */
+@Service
+public class ProductImportService {
+
+    // Finished jobs are kept this long for status polling
+    private static final long JOB_RETENTION_HOURS = 24;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.chunk-size:500}")
+    private int chunkSize;
+
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    public ProductImportService(@Value("${app.import.workers:2}") int workers) {
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "product-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stage the upload and queue it for import into the given manufacturer's catalog.
+     */
+    public ProductImportJob startImport(MultipartFile file, String manufacturerId) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Import file is empty");
+        }
+        boolean csv = isCsv(file);
+        Path staged = Files.createTempFile("product-import-", csv ? ".csv" : ".json");
+        file.transferTo(staged);
+
+        purgeFinishedJobs();
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), manufacturerId,
+                file.getOriginalFilename(), Files.size(staged));
+        jobs.put(job.getId(), job);
+        executor.submit(() -> run(job, staged, csv));
+        return job;
+    }
+
+    public ProductImportJob getJob(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ProductImportJob job, Path staged, boolean csv) {
+        job.start();
+        try (FileChannel channel = FileChannel.open(staged);
+             RowReader reader = csv ? new CsvRowReader(Channels.newInputStream(channel))
+                                    : new JsonRowReader(Channels.newInputStream(channel))) {
+            ImportState state = new ImportState();
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            Row row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    importChunk(job, chunk, state);
+                    chunk.clear();
+                    job.setBytesRead(channel.position());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk, state);
+            }
+            job.complete();
+            System.out.println("Product import " + job.getId() + " finished: " + job.getImportedRows()
+                    + " imported, " + job.getFailedRows() + " rejected");
+        } catch (Exception e) {
+            System.err.println("Product import " + job.getId() + " failed: " + e.getMessage());
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                System.err.println("Failed to delete staged import file " + staged + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void importChunk(ProductImportJob job, List<Row> chunk, ImportState state) {
+        // Bind, validate and de-duplicate within the file
+        List<Row> candidates = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            String error = prepare(row, state);
+            if (error != null) {
+                job.recordError(row.number, row.sku(), error);
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        // One query for every SKU and barcode in the chunk that already exists
+        Set<String> skus = candidates.stream().map(Row::sku).filter(this::hasText).collect(Collectors.toSet());
+        Set<String> barcodes = candidates.stream().map(Row::barcode).filter(this::hasText).collect(Collectors.toSet());
+        Set<String> existingSkus = new HashSet<>();
+        Set<String> existingBarcodes = new HashSet<>();
+        if (!skus.isEmpty() || !barcodes.isEmpty()) {
+            for (Object[] match : productRepository.findSkuAndBarcodeIn(skus, barcodes)) {
+                existingSkus.add((String) match[0]);
+                existingBarcodes.add((String) match[1]);
+            }
+        }
+
+        List<Row> inserts = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (hasText(row.sku()) && existingSkus.contains(row.sku())) {
+                job.recordError(row.number, row.sku(), "Product with SKU " + row.sku() + " already exists");
+            } else if (hasText(row.barcode()) && existingBarcodes.contains(row.barcode())) {
+                job.recordError(row.number, row.sku(), "Product with barcode " + row.barcode() + " already exists");
+            } else {
+                inserts.add(row);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(inserts, job.getManufacturerId());
+            job.recordImported(inserts.size());
+        } catch (RuntimeException e) {
+            // A constraint hit between the check and the insert; retry row by row to isolate it
+            for (Row row : inserts) {
+                try {
+                    insert(List.of(row), job.getManufacturerId());
+                    job.recordImported(1);
+                } catch (RuntimeException rowFailure) {
+                    job.recordError(row.number, row.sku(), rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows, String manufacturerId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Manufacturer manufacturer = entityManager.getReference(Manufacturer.class, manufacturerId);
+            List<Product> products = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                Product product = new Product();
+                product.setId(UUID.randomUUID().toString());
+                productService.setProductFields(row.request, product);
+                product.setManufacturer(manufacturer);
+                entityManager.persist(product);
+                products.add(product);
+            }
+            entityManager.flush();
+            productSearchIndex.indexAllAfterCommit(products);
+            productFacetIndex.updateAllAfterCommit(products);
+            catalogVersion.bumpAfterCommit();
+            entityManager.clear();
+        });
+    }
+
+    // Returns an error message, or null when the row is ready to insert
+    private String prepare(Row row, ImportState state) {
+        if (row.parseError != null) {
+            return row.parseError;
+        }
+        try {
+            row.request = objectMapper.treeToValue(row.data, ProductRequest.class);
+        } catch (IOException | IllegalArgumentException e) {
+            return "Invalid row: " + e.getMessage();
+        }
+
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(row.request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        if (hasText(row.sku()) && !state.skus.add(row.sku())) {
+            return "Duplicate SKU in file: " + row.sku();
+        }
+        if (hasText(row.barcode()) && !state.barcodes.add(row.barcode())) {
+            return "Duplicate barcode in file: " + row.barcode();
+        }
+        return null;
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private boolean isCsv(MultipartFile file) {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        String type = file.getContentType() != null ? file.getContentType().toLowerCase() : "";
+        return name.endsWith(".csv") || type.contains("csv");
+    }
+
+    private boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    // SKUs and barcodes already seen earlier in the same file
+    private static class ImportState {
+        private final Set<String> skus = new HashSet<>();
+        private final Set<String> barcodes = new HashSet<>();
+    }
+
+    private static class Row {
+        private final int number;
+        private final JsonNode data;
+        private final String parseError;
+        private ProductRequest request;
+
+        Row(int number, JsonNode data, String parseError) {
+            this.number = number;
+            this.data = data;
+            this.parseError = parseError;
+        }
+
+        String sku() {
+            if (request != null) {
+                return request.getSku();
+            }
+            return data != null && data.hasNonNull("sku") ? data.get("sku").asText() : null;
+        }
+
+        String barcode() {
+            return request != null ? request.getBarcode() : null;
+        }
+    }
+
+    private interface RowReader extends Closeable {
+        Row next() throws IOException;
+    }
+
+    /**
+     * JSON array of product objects, or one object per line (NDJSON).
+     */
+    private class JsonRowReader implements RowReader {
+        private final MappingIterator<JsonNode> iterator;
+        private int number = 0;
+
+        JsonRowReader(InputStream in) throws IOException {
+            this.iterator = objectMapper.readerFor(JsonNode.class).readValues(in);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (!iterator.hasNextValue()) {
+                return null;
+            }
+            number++;
+            JsonNode node = iterator.nextValue();
+            if (!node.isObject()) {
+                return new Row(number, null, "Expected a JSON object");
+            }
+            return new Row(number, node, null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming ProductRequest fields. Quoted fields may contain
+     * separators, quotes and line breaks; imageUrls holds several URLs separated by '|'.
+     */
+    private class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private int number = 0;
+
+        CsvRowReader(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> columns = readRecord();
+            if (columns == null) {
+                throw new RuntimeException("CSV file has no header row");
+            }
+            if (!columns.isEmpty() && columns.get(0).startsWith("\uFEFF")) {
+                columns.set(0, columns.get(0).substring(1));
+            }
+            this.header = columns.stream().map(String::trim).collect(Collectors.toList());
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> values = readRecord();
+            while (values != null && values.size() == 1 && values.get(0).isEmpty()) {
+                values = readRecord(); // skip blank lines
+            }
+            if (values == null) {
+                return null;
+            }
+            number++;
+            if (values.size() != header.size()) {
+                return new Row(number, null, "Expected " + header.size() + " columns but found " + values.size());
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            for (int i = 0; i < header.size(); i++) {
+                String value = values.get(i);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if ("imageUrls".equals(header.get(i))) {
+                    ArrayNode urls = node.putArray("imageUrls");
+                    for (String url : value.split("\\|")) {
+                        if (!url.isBlank()) {
+                            urls.add(url.trim());
+                        }
+                    }
+                } else {
+                    node.put(header.get(i), value);
+                }
+            }
+            return new Row(number, node, null);
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Embedded Lucene index over the product catalog.
+ * Built from the products table at startup and kept current by ProductService writes.
+ * Searches return ranked product ids; callers hydrate them from the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    public enum Scope {
+        NAME, DESCRIPTION, ALL
+    }
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_TAGS = "tags";
+    private static final String FIELD_BRAND = "brand";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_ACTIVE = "active";
+    private static final String FIELD_PRICE = "price";
+    private static final String FACET_CATEGORY = "facet_category";
+    private static final String FACET_SUBCATEGORY = "facet_subcategory";
+    private static final String FACET_BRAND = "facet_brand";
+    private static final String SORT_NAME = "sort_name";
+    private static final String SORT_PRICE = "sort_price";
+    private static final String SORT_CREATED_AT = "sort_created_at";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory = new ByteBuffersDirectory();
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Failed to build product search index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-index the whole catalog, reading products in id order in fixed-size batches.
+     */
+    public synchronized void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        ready = false;
+        if (indexWriter == null) {
+            indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            searcherManager = new SearcherManager(indexWriter, null);
+        }
+        indexWriter.deleteAll();
+
+        long indexed = 0;
+        List<Product> batch = productRepository.findTop1000ByIdGreaterThanOrderByIdAsc("");
+        while (!batch.isEmpty()) {
+            for (Product product : batch) {
+                indexWriter.addDocument(toDocument(product));
+            }
+            indexed += batch.size();
+            String lastId = batch.get(batch.size() - 1).getId();
+            batch = productRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+        }
+
+        indexWriter.commit();
+        searcherManager.maybeRefreshBlocking();
+        ready = true;
+        System.out.println("Product search index built: " + indexed + " products in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Add or replace a product once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Product product) {
+        if (!enabled) {
+            return;
+        }
+        String id = product.getId();
+        Document document = toDocument(product);
+        runAfterCommit(() -> {
+            try {
+                indexWriter.updateDocument(new Term(FIELD_ID, id), document);
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                System.err.println("Failed to index product " + id + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Add or replace many products once the surrounding transaction commits, refreshing the searcher once.
+     */
+    public void indexAllAfterCommit(Collection<Product> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (Product product : products) {
+            documents.put(product.getId(), toDocument(product));
+        }
+        runAfterCommit(() -> {
+            try {
+                for (Map.Entry<String, Document> entry : documents.entrySet()) {
+                    indexWriter.updateDocument(new Term(FIELD_ID, entry.getKey()), entry.getValue());
+                }
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                System.err.println("Failed to index " + documents.size() + " products: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Remove a product once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(String id) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> {
+            try {
+                indexWriter.deleteDocuments(new Term(FIELD_ID, id));
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                System.err.println("Failed to remove product " + id + " from index: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Search the index and return one page of matching product ids.
+     * Results are ranked by relevance unless the pageable is sorted by name, price or createdAt.
+     */
+    public Page<String> search(String text, Scope scope, boolean activeOnly, Pageable pageable) throws IOException {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        return execute(textQuery(terms, scope, activeOnly).build(), pageable, null);
+    }
+
+    /**
+     * Storefront search over active products. The facet filter runs as index clauses, so only the
+     * requested page is collected; with {@code countFacets} the category, subcategory, brand and
+     * price bucket counts over every hit are gathered in the same pass.
+     */
+    public FacetedHits search(String text, ProductFacetIndex.Filter filter, boolean countFacets,
+                              Pageable pageable) throws IOException {
+        FacetCounter counter = countFacets ? new FacetCounter() : null;
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            Page<String> empty = new PageImpl<>(new ArrayList<>(), pageable, 0);
+            return new FacetedHits(empty, counter != null ? counter.counts() : Map.of());
+        }
+
+        BooleanQuery.Builder query = textQuery(terms, Scope.ALL, true);
+        addFilter(query, FACET_CATEGORY, filter.getCategory());
+        addFilter(query, FACET_SUBCATEGORY, filter.getSubcategory());
+        addFilter(query, FACET_BRAND, filter.getBrand());
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            long lower = filter.getMinPrice() != null ? toPaise(filter.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            long upper = filter.getMaxPrice() != null ? toPaise(filter.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            query.add(LongPoint.newRangeQuery(FIELD_PRICE, lower, upper), BooleanClause.Occur.FILTER);
+        }
+
+        Page<String> ids = execute(query.build(), pageable, counter);
+        return new FacetedHits(ids, counter != null ? counter.counts() : Map.of());
+    }
+
+    public int size() throws IOException {
+        if (searcherManager == null) {
+            return 0;
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.count(new MatchAllDocsQuery());
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (indexWriter != null) {
+            indexWriter.close();
+        }
+        directory.close();
+    }
+
+    private BooleanQuery.Builder textQuery(List<String> terms, Scope scope, boolean activeOnly) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(termQuery(term, scope), BooleanClause.Occur.MUST);
+        }
+        if (activeOnly) {
+            query.add(new TermQuery(new Term(FIELD_ACTIVE, "true")), BooleanClause.Occur.FILTER);
+        }
+        return query;
+    }
+
+    private void addFilter(BooleanQuery.Builder query, String field, String value) {
+        if (value != null) {
+            query.add(new TermQuery(new Term(field, value)), BooleanClause.Occur.FILTER);
+        }
+    }
+
+    // Collects the top offset + pageSize hits; stored fields are read for the requested page only
+    private Page<String> execute(Query query, Pageable pageable, FacetCounter counter) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+            int limit = pageable.isPaged()
+                    ? offset + pageable.getPageSize()
+                    : Math.max(1, searcher.count(query));
+
+            org.apache.lucene.search.Sort sort = toLuceneSort(pageable.getSort());
+            TopDocsCollector<?> collector = sort == null
+                    ? TopScoreDocCollector.create(limit, Integer.MAX_VALUE)
+                    : TopFieldCollector.create(sort, limit, Integer.MAX_VALUE);
+            searcher.search(query, counter != null ? MultiCollector.wrap(collector, counter) : collector);
+            TopDocs topDocs = collector.topDocs();
+
+            List<String> ids = new ArrayList<>();
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            for (int i = offset; i < hits.length; i++) {
+                ids.add(searcher.storedFields().document(hits[i].doc).get(FIELD_ID));
+            }
+            if (pageable.isUnpaged()) {
+                return new PageImpl<>(ids);
+            }
+            return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private Query termQuery(String term, Scope scope) {
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+        if (scope == Scope.NAME || scope == Scope.ALL) {
+            addField(anyField, FIELD_NAME, term, 3.0f);
+        }
+        if (scope == Scope.DESCRIPTION || scope == Scope.ALL) {
+            addField(anyField, FIELD_DESCRIPTION, term, 1.0f);
+        }
+        if (scope == Scope.ALL) {
+            addField(anyField, FIELD_TAGS, term, 2.0f);
+            addField(anyField, FIELD_BRAND, term, 2.0f);
+            addField(anyField, FIELD_CATEGORY, term, 1.5f);
+        }
+        return anyField.build();
+    }
+
+    // Exact token matches outrank prefix matches of the same field
+    private void addField(BooleanQuery.Builder builder, String field, String term, float boost) {
+        builder.add(new BoostQuery(new TermQuery(new Term(field, term)), boost), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new PrefixQuery(new Term(field, term)), boost / 2), BooleanClause.Occur.SHOULD);
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(FIELD_NAME, new StringReader(text))) {
+            CharTermAttribute attribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(attribute.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    private org.apache.lucene.search.Sort toLuceneSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            boolean reverse = order.isDescending();
+            switch (order.getProperty()) {
+                case "name":
+                    return new org.apache.lucene.search.Sort(new SortField(SORT_NAME, SortField.Type.STRING, reverse));
+                case "price":
+                    return new org.apache.lucene.search.Sort(new SortField(SORT_PRICE, SortField.Type.LONG, reverse));
+                case "createdAt":
+                    return new org.apache.lucene.search.Sort(new SortField(SORT_CREATED_AT, SortField.Type.LONG, reverse));
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private Document toDocument(Product product) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, product.getId(), Field.Store.YES));
+        addText(document, FIELD_NAME, product.getName());
+        addText(document, FIELD_DESCRIPTION, product.getDescription());
+        addText(document, FIELD_TAGS, product.getTags());
+        addText(document, FIELD_BRAND, product.getBrand());
+        addText(document, FIELD_CATEGORY, product.getCategory());
+        document.add(new StringField(FIELD_ACTIVE, String.valueOf(Boolean.TRUE.equals(product.getIsActive())), Field.Store.NO));
+        addFacet(document, FACET_CATEGORY, product.getCategory());
+        addFacet(document, FACET_SUBCATEGORY, product.getSubcategory());
+        addFacet(document, FACET_BRAND, product.getBrand());
+
+        String name = product.getName() != null ? product.getName().toLowerCase(Locale.ROOT) : "";
+        document.add(new SortedDocValuesField(SORT_NAME, new BytesRef(name)));
+        // Products without a price sort as 0 but match no price filter and fall in no price bucket
+        if (product.getPrice() != null) {
+            long priceInPaise = toPaise(product.getPrice(), RoundingMode.DOWN);
+            document.add(new LongPoint(FIELD_PRICE, priceInPaise));
+            document.add(new NumericDocValuesField(SORT_PRICE, priceInPaise));
+        }
+        long createdAt = product.getCreatedAt() != null ? product.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+        document.add(new NumericDocValuesField(SORT_CREATED_AT, createdAt));
+        return document;
+    }
+
+    private void addText(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    // Exact value, both as a filter term and as doc values for counting
+    private void addFacet(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new StringField(field, value, Field.Store.NO));
+            document.add(new SortedDocValuesField(field, new BytesRef(value)));
+        }
+    }
+
+    private long toPaise(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValue();
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (indexWriter == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One page of matching product ids and, when requested, facet counts (dimension -> value -> count) over all hits.
+     */
+    public record FacetedHits(Page<String> ids, Map<String, Map<String, Long>> facets) {}
+
+    /**
+     * Counts facet values of every collected hit. Values are tallied by per-segment ordinal and
+     * turned into strings once per segment; prices are tallied per distinct price and bucketed at the end.
+     */
+    private class FacetCounter extends SimpleCollector {
+        private final String[] fields = {FACET_CATEGORY, FACET_SUBCATEGORY, FACET_BRAND};
+        private final String[] dimensions = {ProductFacetIndex.CATEGORY, ProductFacetIndex.SUBCATEGORY, ProductFacetIndex.BRAND};
+
+        private final Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        private final Map<Long, Long> priceCounts = new HashMap<>();
+        private final SortedDocValues[] values = new SortedDocValues[fields.length];
+        private final int[][] ordinalCounts = new int[fields.length][];
+        private NumericDocValues prices;
+
+        FacetCounter() {
+            for (String dimension : dimensions) {
+                counts.put(dimension, new TreeMap<>());
+            }
+            counts.put(ProductFacetIndex.PRICE, new TreeMap<>());
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flushSegment();
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = DocValues.getSorted(context.reader(), fields[i]);
+                ordinalCounts[i] = new int[values[i].getValueCount()];
+            }
+            prices = DocValues.getNumeric(context.reader(), SORT_PRICE);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i].advanceExact(doc)) {
+                    ordinalCounts[i][values[i].ordValue()]++;
+                }
+            }
+            if (prices.advanceExact(doc)) {
+                priceCounts.merge(prices.longValue(), 1L, Long::sum);
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        Map<String, Map<String, Long>> counts() throws IOException {
+            flushSegment();
+            Map<String, Long> buckets = counts.get(ProductFacetIndex.PRICE);
+            for (Map.Entry<Long, Long> price : priceCounts.entrySet()) {
+                String bucket = productFacetIndex.priceBucket(BigDecimal.valueOf(price.getKey(), 2));
+                if (bucket != null) {
+                    buckets.merge(bucket, price.getValue(), Long::sum);
+                }
+            }
+            priceCounts.clear();
+            counts.put(ProductFacetIndex.PRICE, productFacetIndex.inBucketOrder(buckets));
+            return counts;
+        }
+
+        private void flushSegment() throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i] == null) {
+                    continue;
+                }
+                Map<String, Long> dimension = counts.get(dimensions[i]);
+                for (int ord = 0; ord < ordinalCounts[i].length; ord++) {
+                    if (ordinalCounts[i][ord] > 0) {
+                        dimension.merge(values[i].lookupOrd(ord).utf8ToString(), (long) ordinalCounts[i][ord], Long::sum);
+                    }
+                }
+                values[i] = null;
+            }
+        }
+    }
+}
@@ -1,32 +1,70 @@
 package com.crackersbazaar.service;
 
+import com.crackersbazaar.dto.CursorPage;
+import com.crackersbazaar.dto.FacetedSearchResponse;
+import com.crackersbazaar.dto.ProductCardResponse;
 import com.crackersbazaar.dto.ProductRequest;
 import com.crackersbazaar.dto.ProductResponse;
+import com.crackersbazaar.dto.ResourceVersion;
 import com.crackersbazaar.entity.Manufacturer;
 import com.crackersbazaar.entity.Product;
 import com.crackersbazaar.repository.ManufacturerRepository;
 import com.crackersbazaar.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductService {
     
+    // Upper bound on ids per IN query for batch lookups
+    private static final int ID_CHUNK_SIZE = 500;
+    
     @Autowired
     private ProductRepository productRepository;
     
     @Autowired
     private ManufacturerRepository manufacturerRepository;
     
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+    
+    @Autowired
+    private OptimisticLockRetry optimisticLockRetry;
+    
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
     public ProductResponse createProduct(ProductRequest request, String manufacturerId) {
         Manufacturer manufacturer = manufacturerRepository.findById(manufacturerId)
                 .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + manufacturerId));
@@ -53,25 +91,99 @@ public class ProductService {
         product.setManufacturer(manufacturer);
         
         Product savedProduct = productRepository.save(product);
+        catalogVersion.bumpAfterCommit();
+        productSearchIndex.indexAfterCommit(savedProduct);
+        productFacetIndex.updateAfterCommit(savedProduct);
         return new ProductResponse(savedProduct);
     }
     
+    @Transactional(readOnly = true)
     public ProductResponse getProductById(String id) {
+        Optional<ProductResponse> cached = productCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        long generation = productCache.generation();
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return new ProductResponse(product);
+        ProductResponse response = new ProductResponse(product);
+        productCache.put(response, generation);
+        return response;
+    }
+    
+    /**
+     * Resolve many products at once, keyed by id in request order. Cached products are served
+     * from the cache; the rest are loaded with one IN query per chunk. Unknown ids are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, ProductResponse> getProductsByIds(Collection<String> ids) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) {
+                requested.add(id);
+            }
+        }
+        
+        Map<String, ProductResponse> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : requested) {
+            Optional<ProductResponse> cached = productCache.getById(id);
+            if (cached.isPresent()) {
+                found.put(id, cached.get());
+            } else {
+                missing.add(id);
+            }
+        }
+        
+        long generation = productCache.generation();
+        for (int from = 0; from < missing.size(); from += ID_CHUNK_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + ID_CHUNK_SIZE, missing.size()));
+            for (Product product : productRepository.findByIdIn(chunk)) {
+                ProductResponse response = new ProductResponse(product);
+                productCache.put(response, generation);
+                found.put(product.getId(), response);
+            }
+        }
+        
+        Map<String, ProductResponse> ordered = new LinkedHashMap<>();
+        for (String id : requested) {
+            ProductResponse response = found.get(id);
+            if (response != null) {
+                ordered.put(id, response);
+            }
+        }
+        return ordered;
     }
     
+    @Transactional(readOnly = true)
     public ProductResponse getProductBySku(String sku) {
+        Optional<ProductResponse> cached = productCache.getBySku(sku);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        long generation = productCache.generation();
         Product product = productRepository.findBySku(sku)
                 .orElseThrow(() -> new RuntimeException("Product not found with SKU: " + sku));
-        return new ProductResponse(product);
+        ProductResponse response = new ProductResponse(product);
+        productCache.put(response, generation);
+        return response;
     }
     
+    @Transactional(readOnly = true)
     public ProductResponse getProductByBarcode(String barcode) {
+        Optional<ProductResponse> cached = productCache.getByBarcode(barcode);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        long generation = productCache.generation();
         Product product = productRepository.findByBarcode(barcode)
                 .orElseThrow(() -> new RuntimeException("Product not found with barcode: " + barcode));
-        return new ProductResponse(product);
+        ProductResponse response = new ProductResponse(product);
+        productCache.put(response, generation);
+        return response;
     }
     
     public List<ProductResponse> getAllProducts() {
@@ -86,6 +198,81 @@ public class ProductService {
         return products.map(ProductResponse::new);
     }
     
+    /**
+     * Keyset listing ordered by (createdAt desc, id desc). Each filter is optional;
+     * an empty cursor returns the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getProductsAfter(String category, String brand, String manufacturerId,
+                                                        Boolean isActive, String cursor, int size) {
+        CursorPage.Position position = CursorPage.decode(cursor);
+        List<Product> products = productRepository.findPageAfter(category, brand, manufacturerId, isActive,
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(products, size, Product::getCreatedAt, Product::getId, ProductResponse::new);
+    }
+    
+    /**
+     * Card view of a product listing: one constructor-expression query for the card columns plus
+     * one query for the images of the products on the page. Null filters match everything.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductCardResponse> getProductCards(String manufacturerId, String category, String subcategory,
+                                                     String brand, BigDecimal minPrice, BigDecimal maxPrice,
+                                                     Boolean isActive, Boolean isFeatured, Integer stockBelow,
+                                                     Pageable pageable) {
+        Page<ProductCardResponse> cards = productRepository.findCards(null, null, category, subcategory, brand,
+                minPrice, maxPrice, manufacturerId, isActive, isFeatured, stockBelow, databaseSort(pageable));
+        attachFirstImages(cards.getContent());
+        return cards;
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<ProductCardResponse> getProductCardsAfter(String category, String brand, String manufacturerId,
+                                                                Boolean isActive, String cursor, int size) {
+        CursorPage.Position position = CursorPage.decode(cursor);
+        List<ProductCardResponse> cards = productRepository.findCardPageAfter(category, brand, manufacturerId, isActive,
+                position != null ? position.createdAt() : null,
+                position != null ? position.id() : null,
+                PageRequest.of(0, size + 1));
+        CursorPage<ProductCardResponse> page = CursorPage.of(cards, size,
+                ProductCardResponse::getCreatedAt, ProductCardResponse::getId, card -> card);
+        attachFirstImages(page.getContent());
+        return page;
+    }
+    
+    // Card view of the text searches; same ranking and fallbacks as the full searches
+    @Transactional(readOnly = true)
+    public Page<ProductCardResponse> searchProductCards(String text, ProductSearchIndex.Scope scope, Pageable pageable) {
+        if (productSearchIndex.isReady()) {
+            Page<String> ids;
+            try {
+                ids = productSearchIndex.search(text, scope, true, pageable);
+            } catch (IOException e) {
+                throw new RuntimeException("Product search failed: " + e.getMessage());
+            }
+            Map<String, ProductCardResponse> cards = new HashMap<>();
+            if (!ids.getContent().isEmpty()) {
+                for (ProductCardResponse card : productRepository.findCardsByIdIn(ids.getContent())) {
+                    cards.put(card.getId(), card);
+                }
+            }
+            List<ProductCardResponse> content = ids.getContent().stream()
+                    .map(cards::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            attachFirstImages(content);
+            return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+        }
+        String description = scope == ProductSearchIndex.Scope.DESCRIPTION ? text : null;
+        String name = description == null ? text : null;
+        Page<ProductCardResponse> cards = productRepository.findCards(name, description, null, null, null,
+                null, null, null, true, null, null, databaseSort(pageable));
+        attachFirstImages(cards.getContent());
+        return cards;
+    }
+    
     public List<ProductResponse> getProductsByManufacturer(String manufacturerId) {
         Manufacturer manufacturer = manufacturerRepository.findById(manufacturerId)
                 .orElseThrow(() -> new RuntimeException("Manufacturer not found with id: " + manufacturerId));
@@ -159,6 +346,9 @@ public class ProductService {
     }
     
     public List<ProductResponse> searchProductsByName(String name) {
+        if (productSearchIndex.isReady()) {
+            return searchIndex(name, ProductSearchIndex.Scope.NAME, Pageable.unpaged()).getContent();
+        }
         List<Product> products = productRepository.findByNameContainingIgnoreCaseAndIsActive(name, true);
         return products.stream()
                 .map(ProductResponse::new)
@@ -166,11 +356,17 @@ public class ProductService {
     }
     
     public Page<ProductResponse> searchProductsByName(String name, Pageable pageable) {
-        Page<Product> products = productRepository.findByNameContainingIgnoreCaseAndIsActive(name, true, pageable);
+        if (productSearchIndex.isReady()) {
+            return searchIndex(name, ProductSearchIndex.Scope.NAME, pageable);
+        }
+        Page<Product> products = productRepository.findByNameContainingIgnoreCaseAndIsActive(name, true, databaseSort(pageable));
         return products.map(ProductResponse::new);
     }
     
     public List<ProductResponse> searchProductsByDescription(String description) {
+        if (productSearchIndex.isReady()) {
+            return searchIndex(description, ProductSearchIndex.Scope.DESCRIPTION, Pageable.unpaged()).getContent();
+        }
         List<Product> products = productRepository.findByDescriptionContainingIgnoreCaseAndIsActive(description, true);
         return products.stream()
                 .map(ProductResponse::new)
@@ -178,10 +374,57 @@ public class ProductService {
     }
     
     public Page<ProductResponse> searchProductsByDescription(String description, Pageable pageable) {
-        Page<Product> products = productRepository.findByDescriptionContainingIgnoreCaseAndIsActive(description, true, pageable);
+        if (productSearchIndex.isReady()) {
+            return searchIndex(description, ProductSearchIndex.Scope.DESCRIPTION, pageable);
+        }
+        Page<Product> products = productRepository.findByDescriptionContainingIgnoreCaseAndIsActive(description, true, databaseSort(pageable));
+        return products.map(ProductResponse::new);
+    }
+    
+    // Free-text search across name, description, tags, brand and category
+    public Page<ProductResponse> searchProductsByText(String text, Pageable pageable) {
+        if (productSearchIndex.isReady()) {
+            return searchIndex(text, ProductSearchIndex.Scope.ALL, pageable);
+        }
+        Page<Product> products = productRepository.findByNameContainingIgnoreCaseAndIsActive(text, true, databaseSort(pageable));
+        return products.map(ProductResponse::new);
+    }
+    
+    // Storefront search: optional free text plus category, subcategory, brand and price filters over active products
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> searchProducts(String query, String category, String subcategory, String brand,
+                                                BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        if (query != null && !query.trim().isEmpty() && productSearchIndex.isReady()) {
+            ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter(category, subcategory, brand, minPrice, maxPrice);
+            return hydratePage(facetedSearch(query, filter, false, pageable).ids());
+        }
+        String name = query != null && !query.trim().isEmpty() ? query : null;
+        Page<Product> products = productRepository.searchProducts(name, category, subcategory, minPrice, maxPrice,
+                brand, true, null, databaseSort(pageable));
         return products.map(ProductResponse::new);
     }
     
+    /**
+     * Same result page as {@link #searchProducts} plus category, subcategory, brand and price
+     * bucket counts for everything matching the request, read from the in-memory facet index.
+     */
+    @Transactional(readOnly = true)
+    public FacetedSearchResponse searchProductsWithFacets(String query, String category, String subcategory, String brand,
+                                                          BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter(category, subcategory, brand, minPrice, maxPrice);
+        if (query != null && !query.trim().isEmpty() && productSearchIndex.isReady()) {
+            // Page and facet counts come from one pass over the index
+            ProductSearchIndex.FacetedHits hits = facetedSearch(query, filter, true, pageable);
+            return new FacetedSearchResponse(hydratePage(hits.ids()), hits.facets());
+        }
+        
+        Page<ProductResponse> products = searchProducts(query, category, subcategory, brand, minPrice, maxPrice, pageable);
+        if (!productFacetIndex.isReady() || (query != null && !query.trim().isEmpty())) {
+            return new FacetedSearchResponse(products, Map.of());
+        }
+        return new FacetedSearchResponse(products, productFacetIndex.count(filter));
+    }
+    
     public List<ProductResponse> getProductsByBrand(String brand) {
         List<Product> products = productRepository.findByBrandAndIsActive(brand, true);
         return products.stream()
@@ -230,32 +473,41 @@ public class ProductService {
         return products.map(ProductResponse::new);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse updateProduct(String id, ProductRequest request) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return optimisticLockRetry.execute("product.update", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
-        // Check if SKU is being changed and if new SKU already exists
-        if (request.getSku() != null && !request.getSku().isEmpty() && 
-            !request.getSku().equals(product.getSku())) {
-            Optional<Product> existingProduct = productRepository.findBySku(request.getSku());
-            if (existingProduct.isPresent()) {
-                throw new RuntimeException("Product with SKU " + request.getSku() + " already exists");
+            // Check if SKU is being changed and if new SKU already exists
+            if (request.getSku() != null && !request.getSku().isEmpty() && 
+                !request.getSku().equals(product.getSku())) {
+                Optional<Product> existingProduct = productRepository.findBySku(request.getSku());
+                if (existingProduct.isPresent()) {
+                    throw new RuntimeException("Product with SKU " + request.getSku() + " already exists");
+                }
             }
-        }
         
-        // Check if barcode is being changed and if new barcode already exists
-        if (request.getBarcode() != null && !request.getBarcode().isEmpty() && 
-            !request.getBarcode().equals(product.getBarcode())) {
-            Optional<Product> existingProduct = productRepository.findByBarcode(request.getBarcode());
-            if (existingProduct.isPresent()) {
-                throw new RuntimeException("Product with barcode " + request.getBarcode() + " already exists");
+            // Check if barcode is being changed and if new barcode already exists
+            if (request.getBarcode() != null && !request.getBarcode().isEmpty() && 
+                !request.getBarcode().equals(product.getBarcode())) {
+                Optional<Product> existingProduct = productRepository.findByBarcode(request.getBarcode());
+                if (existingProduct.isPresent()) {
+                    throw new RuntimeException("Product with barcode " + request.getBarcode() + " already exists");
+                }
             }
-        }
         
-        setProductFields(request, product);
+            int previousStock = product.getStockQuantity();
+            setProductFields(request, product);
         
-        Product savedProduct = productRepository.save(product);
-        return new ProductResponse(savedProduct);
+            Product savedProduct = productRepository.save(product);
+            productCache.evict(id);
+            catalogVersion.bumpAfterCommit();
+            stockReservationLedger.adjustAfterCommit(id, savedProduct.getStockQuantity() - previousStock);
+            productSearchIndex.indexAfterCommit(savedProduct);
+            productFacetIndex.updateAfterCommit(savedProduct);
+            return new ProductResponse(savedProduct);
+        });
     }
     
     public void deleteProduct(String id) {
@@ -263,40 +515,75 @@ public class ProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        productCache.evict(id);
+        catalogVersion.bumpAfterCommit();
+        stockReservationLedger.evictAfterCommit(id);
+        productSearchIndex.removeAfterCommit(id);
+        productFacetIndex.removeAfterCommit(id);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse toggleProductStatus(String id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return optimisticLockRetry.execute("product.toggleStatus", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
-        product.setIsActive(!product.getIsActive());
+            product.setIsActive(!product.getIsActive());
         
-        Product savedProduct = productRepository.save(product);
-        return new ProductResponse(savedProduct);
+            Product savedProduct = productRepository.save(product);
+            productCache.evict(id);
+            catalogVersion.bumpAfterCommit();
+            productSearchIndex.indexAfterCommit(savedProduct);
+            productFacetIndex.updateAfterCommit(savedProduct);
+            return new ProductResponse(savedProduct);
+        });
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse toggleFeaturedStatus(String id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return optimisticLockRetry.execute("product.toggleFeatured", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
-        product.setIsFeatured(!product.getIsFeatured());
+            product.setIsFeatured(!product.getIsFeatured());
         
-        Product savedProduct = productRepository.save(product);
-        return new ProductResponse(savedProduct);
+            Product savedProduct = productRepository.save(product);
+            productCache.evict(id);
+            catalogVersion.bumpAfterCommit();
+            return new ProductResponse(savedProduct);
+        });
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse updateStock(String id, Integer newStockQuantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return optimisticLockRetry.execute("product.updateStock", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
-        if (newStockQuantity < 0) {
-            throw new RuntimeException("Stock quantity cannot be negative");
-        }
+            if (newStockQuantity < 0) {
+                throw new RuntimeException("Stock quantity cannot be negative");
+            }
         
-        product.setStockQuantity(newStockQuantity);
+            int previousStock = product.getStockQuantity();
+            product.setStockQuantity(newStockQuantity);
         
-        Product savedProduct = productRepository.save(product);
-        return new ProductResponse(savedProduct);
+            Product savedProduct = productRepository.save(product);
+            productCache.evict(id);
+            catalogVersion.bumpAfterCommit();
+            stockReservationLedger.adjustAfterCommit(id, newStockQuantity - previousStock);
+            return new ProductResponse(savedProduct);
+        });
+    }
+    
+    // Version stamps for conditional GETs, read without loading any product rows
+    @Transactional(readOnly = true)
+    public ResourceVersion getProductVersion(String id) {
+        return productRepository.findVersionById(id).orElse(null);
+    }
+    
+    // Listings revalidate against the write counter; any catalog write changes every listing's ETag
+    public ResourceVersion getCatalogVersion() {
+        return catalogVersion.current();
     }
     
     public Long getProductCountByManufacturer(String manufacturerId) {
@@ -310,7 +597,73 @@ public class ProductService {
         return productRepository.countByCategoryAndIsActive(category, true);
     }
     
-    private void setProductFields(ProductRequest request, Product product) {
+    private Page<ProductResponse> searchIndex(String text, ProductSearchIndex.Scope scope, Pageable pageable) {
+        Page<String> ids;
+        try {
+            ids = productSearchIndex.search(text, scope, true, pageable);
+        } catch (IOException e) {
+            throw new RuntimeException("Product search failed: " + e.getMessage());
+        }
+        return hydratePage(ids);
+    }
+
+    private Page<ProductResponse> hydratePage(Page<String> ids) {
+        Map<String, ProductResponse> products = hydrate(ids.getContent());
+        List<ProductResponse> content = ids.getContent().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+    
+    private ProductSearchIndex.FacetedHits facetedSearch(String text, ProductFacetIndex.Filter filter,
+                                                         boolean countFacets, Pageable pageable) {
+        try {
+            return productSearchIndex.search(text, filter, countFacets, pageable);
+        } catch (IOException e) {
+            throw new RuntimeException("Product search failed: " + e.getMessage());
+        }
+    }
+    
+    // Fill in the first image of each card with one query for the whole page
+    private void attachFirstImages(List<ProductCardResponse> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<String, ProductCardResponse> byId = new HashMap<>();
+        for (ProductCardResponse card : cards) {
+            byId.put(card.getId(), card);
+        }
+        for (Object[] row : productRepository.findImageUrlsByProductIdIn(byId.keySet())) {
+            ProductCardResponse card = byId.get((String) row[0]);
+            if (card != null && card.getImageUrl() == null) {
+                card.setImageUrl((String) row[1]);
+            }
+        }
+    }
+    
+    // "relevance" only means something to the search index; the database fallback orders by name
+    private Pageable databaseSort(Pageable pageable) {
+        if (pageable.getSort().getOrderFor("relevance") != null) {
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("name"));
+        }
+        return pageable;
+    }
+    
+    // Load products for a list of ids in one query, keyed by id
+    private Map<String, ProductResponse> hydrate(Collection<String> ids) {
+        Map<String, ProductResponse> responses = new HashMap<>();
+        if (ids.isEmpty()) {
+            return responses;
+        }
+        for (Product product : productRepository.findByIdIn(ids)) {
+            responses.put(product.getId(), new ProductResponse(product));
+        }
+        return responses;
+    }
+    
+    // Package-private so ProductImportService maps rows exactly like single creates
+    void setProductFields(ProductRequest request, Product product) {
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -0,0 +1,215 @@
+package com.crackersbazaar.service;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Writes an object to S3 as it is produced. Bytes collect in one part-sized buffer; each full part
+ * is sent as a multipart-upload part on the async client while writing carries on. At most
+ * {@code maxPartsInFlight} parts are outstanding, and a writer that gets ahead of the network
+ * waits, so memory per upload is bounded by a few parts whatever the object size. An object that
+ * never fills a part is sent as a single PUT.
+ *
+ * Call {@link #finish()} (or close) once everything is written, and {@link #abort()} if writing fails.
+ */
+class S3MultipartOutputStream extends OutputStream {
+
+    // S3 rejects multipart parts below 5MB, except the last
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final S3AsyncClient s3AsyncClient;
+    private final String bucket;
+    private final String key;
+    private final String contentType;
+    private final int partSize;
+    private final int maxPartsInFlight;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int count;
+    private long size;
+    private String uploadId;
+    private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    private CompletableFuture<Long> finished;
+
+    S3MultipartOutputStream(S3AsyncClient s3AsyncClient, String bucket, String key, String contentType,
+                            int partSize, int maxPartsInFlight) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.maxPartsInFlight = Math.max(maxPartsInFlight, 1);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureSpace();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureSpace();
+            int chunk = Math.min(length, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Send what is left and complete the upload. The future yields the object size once S3 has it.
+     */
+    CompletableFuture<Long> finish() {
+        if (finished != null) {
+            return finished;
+        }
+        try {
+            if (uploadId == null) {
+                finished = putSingleObject();
+            } else {
+                if (count > 0) {
+                    sendPart();
+                }
+                finished = completeMultipartUpload();
+            }
+        } catch (IOException | RuntimeException e) {
+            abort();
+            finished = CompletableFuture.failedFuture(e);
+        }
+        buffer = null;
+        return finished;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish().join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload " + key + " to S3: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Give up on the upload and drop any parts S3 already holds.
+     */
+    void abort() {
+        buffer = null;
+        if (finished == null) {
+            finished = CompletableFuture.failedFuture(new IOException("Upload of " + key + " aborted"));
+        }
+        if (uploadId != null) {
+            s3AsyncClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        }
+    }
+
+    private void ensureSpace() throws IOException {
+        if (finished != null) {
+            throw new IOException("Upload of " + key + " already finished");
+        }
+        if (count < buffer.length) {
+            return;
+        }
+        if (buffer.length < partSize) {
+            // Small images never need the full part buffer
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, partSize));
+        } else {
+            sendPart();
+        }
+    }
+
+    private void sendPart() throws IOException {
+        if (uploadId == null) {
+            uploadId = await(s3AsyncClient.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build())).uploadId();
+        }
+        // Every earlier part was awaited on a previous call, so this leaves at most maxPartsInFlight - 1 outstanding
+        if (parts.size() >= maxPartsInFlight) {
+            await(parts.get(parts.size() - maxPartsInFlight));
+        }
+
+        int partNumber = parts.size() + 1;
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) count)
+                .build();
+        // The request body takes its own copy, so the buffer is reused for the next part
+        byte[] part = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        parts.add(s3AsyncClient.uploadPart(request, AsyncRequestBody.fromBytes(part))
+                .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build()));
+        size += count;
+        count = 0;
+    }
+
+    private CompletableFuture<Long> putSingleObject() {
+        long length = count;
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .contentLength(length)
+                .build();
+        return s3AsyncClient.putObject(request, AsyncRequestBody.fromBytes(Arrays.copyOf(buffer, count)))
+                .thenApply(response -> length);
+    }
+
+    private CompletableFuture<Long> completeMultipartUpload() {
+        long length = size;
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+                .thenCompose(done -> {
+                    List<CompletedPart> completedParts = parts.stream()
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toList());
+                    return s3AsyncClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                            .build());
+                })
+                .thenApply(response -> length)
+                .whenComplete((uploaded, e) -> {
+                    if (e != null) {
+                        abort();
+                    }
+                });
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload " + key + " to S3: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -1,28 +1,53 @@
 package com.crackersbazaar.service;
 
+import com.crackersbazaar.dto.ImageUploadResult;
 import net.coobird.thumbnailator.Thumbnails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class S3StorageService {
 
+    // Derived images live under variants/<original key>/, so deleting an original can find them by prefix
+    private static final String VARIANTS_PREFIX = "variants/";
+
     @Autowired
     private S3Client s3Client;
 
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    private ImageCache imageCache;
+
+    @Autowired
+    private ImageProcessingExecutor imageProcessingExecutor;
+
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
@@ -44,6 +69,12 @@ public class S3StorageService {
     @Value("${app.upload.allowed-types:image/jpeg,image/png,image/gif,image/webp}")
     private String allowedTypes;
 
+    @Value("${app.upload.s3.part-size:5242880}") // 5MB, the S3 minimum
+    private int uploadPartSize;
+
+    @Value("${app.upload.s3.parts-in-flight:2}")
+    private int uploadPartsInFlight;
+
     /**
      * Upload and compress image to S3
      */
@@ -54,21 +85,85 @@ public class S3StorageService {
 
         validateFile(file);
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
-        String filename = java.util.UUID.randomUUID().toString() + extension;
-        String s3Key = folder + "/" + filename;
+        String s3Key = newKey(file, folder);
+        try {
+            long storedSize = compressToS3(file, s3Key).finish().join();
+            logUpload(s3Key, file.getSize(), storedSize);
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload image to S3: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        // Return the S3 key (used for proxy URL)
+        return s3Key;
+    }
+
+    /**
+     * Upload multiple images to S3. Files are compressed in parallel on the image CPU pool, each one
+     * streaming into its own S3 upload while it is encoded, so the batch takes about as long as its
+     * slowest file. A file that fails is reported in its result without failing the others.
+     */
+    public List<ImageUploadResult> uploadImages(List<MultipartFile> files, String folder) {
+        List<CompletableFuture<ImageUploadResult>> uploads = new ArrayList<>();
+        for (MultipartFile file : files) {
+            if (!file.isEmpty()) {
+                uploads.add(uploadInBackground(file, folder));
+            }
+        }
+
+        List<ImageUploadResult> results = new ArrayList<>(uploads.size());
+        for (CompletableFuture<ImageUploadResult> upload : uploads) {
+            results.add(upload.join());
+        }
+        return results;
+    }
+
+    private CompletableFuture<ImageUploadResult> uploadInBackground(MultipartFile file, String folder) {
+        String originalName = file.getOriginalFilename();
+        try {
+            validateFile(file);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ImageUploadResult.failed(originalName, file.getSize(), e.getMessage()));
+        }
+
+        String s3Key = newKey(file, folder);
+        // The CPU thread is released once the image is encoded; the last parts finish on the async client
+        return imageProcessingExecutor.transcode(() -> compressToS3(file, s3Key))
+                .thenCompose(S3MultipartOutputStream::finish)
+                .thenApply(storedSize -> {
+                    logUpload(s3Key, file.getSize(), storedSize);
+                    return ImageUploadResult.uploaded(originalName, "/api/images?key=" + s3Key, s3Key,
+                            file.getSize(), storedSize);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Failed to upload image " + originalName + ": " + cause.getMessage());
+                    return ImageUploadResult.failed(originalName, file.getSize(), cause.getMessage());
+                });
+    }
 
-        // Get original size
-        long originalSize = file.getSize();
+    // Unique key per upload: <folder>/<uuid><extension>
+    private String newKey(MultipartFile file, String folder) {
+        String extension = getFileExtension(file.getOriginalFilename());
+        return folder + "/" + java.util.UUID.randomUUID().toString() + extension;
+    }
 
-        // Compress image if needed
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        compressImage(file, outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        long compressedSize = imageBytes.length;
+    /**
+     * Compress an image straight into an S3 upload, a part at a time. Returns once everything is
+     * written; the returned stream's finish() completes when S3 has the whole object.
+     */
+    private S3MultipartOutputStream compressToS3(MultipartFile file, String s3Key) throws IOException {
+        S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3AsyncClient, bucketName, s3Key,
+                file.getContentType(), uploadPartSize, uploadPartsInFlight);
+        try {
+            compressImage(file, outputStream);
+        } catch (IOException | RuntimeException e) {
+            outputStream.abort();
+            throw e;
+        }
+        return outputStream;
+    }
 
+    private void logUpload(String s3Key, long originalSize, long compressedSize) {
         // Log compression results
         if (originalSize > compressThreshold) {
             double compressionRatio = ((double)(originalSize - compressedSize) / originalSize) * 100;
@@ -76,56 +171,128 @@ public class S3StorageService {
                     formatFileSize(originalSize), formatFileSize(compressedSize), compressionRatio));
         }
 
-        // Upload to S3
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(s3Key)
-                .contentType(file.getContentType())
-                .contentLength((long) imageBytes.length)
-                .build();
-
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(imageBytes));
-
         System.out.println("Image uploaded to S3: " + s3Key);
-
-        // Return the S3 key (used for proxy URL)
-        return s3Key;
     }
 
     /**
-     * Upload multiple images to S3
+     * Get image as byte array, from the image cache or else from S3
      */
-    public List<String> uploadImages(List<MultipartFile> files, String folder) throws IOException {
-        List<String> s3Keys = new ArrayList<>();
-
-        for (MultipartFile file : files) {
-            if (!file.isEmpty()) {
-                String s3Key = uploadImage(file, folder);
-                s3Keys.add(s3Key);
+    public byte[] getImage(String s3Key) throws IOException {
+        ImageCache.Entry cached = imageCache.lookup(s3Key);
+        if (cached != null) {
+            if (cached.getBytes() != null) {
+                return cached.getBytes();
+            }
+            try (InputStream in = Channels.newInputStream(cached.getChannel())) {
+                return in.readAllBytes();
             }
         }
+        long cacheGeneration = imageCache.generation();
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build();
 
-        return s3Keys;
+            ResponseBytes<GetObjectResponse> object = s3Client.getObjectAsBytes(getObjectRequest);
+            return imageCache.put(s3Key, object.asByteArray(), object.response().eTag(), cacheGeneration).getBytes();
+        } catch (S3Exception e) {
+            throw new IOException("Failed to retrieve image from S3: " + e.getMessage());
+        }
     }
 
     /**
-     * Get image from S3 as byte array
+     * Open an image for a response without buffering it on the heap. Cached copies are returned as
+     * re-readable resources (range requests on them are handled by Spring); on a miss the S3 object
+     * is streamed, with {@code range} and {@code ifNoneMatch} passed through to S3. Small objects
+     * are read fully so they land in the heap tier; large full reads are copied to the disk tier
+     * while they stream.
+     *
+     * Throws S3Exception with status 304 when {@code ifNoneMatch} matches and 416 for a bad range.
      */
-    public byte[] getImage(String s3Key) throws IOException {
+    public ImageContent openImage(String s3Key, String range, String ifNoneMatch) throws IOException {
+        ImageCache.Entry cached = imageCache.lookup(s3Key);
+        if (cached != null) {
+            return fromCache(cached);
+        }
+        long cacheGeneration = imageCache.generation();
         try {
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(s3Key)
+                    .range(range)
+                    .ifNoneMatch(ifNoneMatch)
                     .build();
 
-            return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+            ResponseInputStream<GetObjectResponse> object = s3Client.getObject(getObjectRequest);
+            GetObjectResponse response = object.response();
+            if (response.contentRange() != null) {
+                return new ImageContent(new InputStreamResource(object), response.contentLength(),
+                        response.eTag(), response.contentRange(), true);
+            }
+            if (range != null) {
+                // S3 ignores ranges it cannot serve (multiple or malformed) and sends the whole object
+                object.abort();
+                throw (S3Exception) S3Exception.builder().statusCode(416)
+                        .message("Range not satisfiable: " + range).build();
+            }
+            if (imageCache.fitsInMemory(response.contentLength())) {
+                byte[] bytes;
+                try (object) {
+                    bytes = object.readAllBytes();
+                }
+                return fromCache(imageCache.put(s3Key, bytes, response.eTag(), cacheGeneration));
+            }
+            InputStream body = imageCache.fillWhileReading(s3Key, response.eTag(), response.contentLength(), object,
+                    cacheGeneration);
+            return new ImageContent(new InputStreamResource(body), response.contentLength(),
+                    response.eTag(), null, true);
+        } catch (NoSuchKeyException e) {
+            throw new FileNotFoundException("Image not found in S3: " + s3Key);
         } catch (S3Exception e) {
+            if (e.statusCode() == 304 || e.statusCode() == 416) {
+                throw e;
+            }
             throw new IOException("Failed to retrieve image from S3: " + e.getMessage());
         }
     }
 
+    private ImageContent fromCache(ImageCache.Entry entry) {
+        Resource resource = entry.getBytes() != null
+                ? new ByteArrayResource(entry.getBytes())
+                : new FileChannelResource(entry.getChannel(), entry.getLength());
+        return new ImageContent(resource, entry.getLength(), entry.getETag(), null, false);
+    }
+
+    /**
+     * Deterministic key of a resized / re-encoded variant, e.g. variants/products/p1/abc.jpg/w320.webp
+     */
+    public String variantKey(String s3Key, int width, String format) {
+        return VARIANTS_PREFIX + s3Key + "/w" + width + "." + format;
+    }
+
+    /**
+     * Store a derived image (a variant) in S3 and in the image cache
+     */
+    public void storeDerivedImage(String s3Key, byte[] imageBytes, String contentType) throws IOException {
+        long cacheGeneration = imageCache.generation();
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .contentLength((long) imageBytes.length)
+                    .build();
+
+            PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromBytes(imageBytes));
+            imageCache.put(s3Key, imageBytes, response.eTag(), cacheGeneration);
+        } catch (S3Exception e) {
+            throw new IOException("Failed to store image in S3: " + e.getMessage(), e);
+        }
+    }
+
     /**
-     * Delete image from S3
+     * Delete image from S3, along with any variants derived from it
      */
     public void deleteImage(String s3Key) {
         try {
@@ -135,12 +302,41 @@ public class S3StorageService {
                     .build();
 
             s3Client.deleteObject(deleteObjectRequest);
+            imageCache.invalidate(s3Key);
             System.out.println("Image deleted from S3: " + s3Key);
+
+            if (!s3Key.startsWith(VARIANTS_PREFIX)) {
+                deleteVariants(s3Key);
+            }
         } catch (S3Exception e) {
             System.err.println("Failed to delete image from S3: " + e.getMessage());
         }
     }
 
+    private void deleteVariants(String s3Key) {
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(VARIANTS_PREFIX + s3Key + "/")
+                .build();
+
+        List<ObjectIdentifier> variants = new ArrayList<>();
+        for (S3Object variant : s3Client.listObjectsV2(listRequest).contents()) {
+            variants.add(ObjectIdentifier.builder().key(variant.key()).build());
+            imageCache.invalidate(variant.key());
+        }
+        if (variants.isEmpty()) {
+            return;
+        }
+
+        DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder().objects(variants).build())
+                .build();
+
+        s3Client.deleteObjects(deleteObjectsRequest);
+        System.out.println("Deleted " + variants.size() + " variants of " + s3Key);
+    }
+
     /**
      * Delete multiple images from S3
      */
@@ -180,34 +376,61 @@ public class S3StorageService {
         }
 
         // For larger files, compress using Thumbnailator
+        BufferedImage originalImage;
         try {
-            BufferedImage originalImage = ImageIO.read(file.getInputStream());
-
-            if (originalImage == null) {
-                // Not a valid image, save as-is
-                file.getInputStream().transferTo(outputStream);
-                return;
-            }
-
-            int originalWidth = originalImage.getWidth();
-            int originalHeight = originalImage.getHeight();
-
-            // Calculate new dimensions if image is too large
-            int targetWidth = Math.min(originalWidth, maxWidth);
-            int targetHeight = Math.min(originalHeight, maxHeight);
-
-            // Compress and resize
-            Thumbnails.of(originalImage)
-                    .size(targetWidth, targetHeight)
-                    .keepAspectRatio(true)
-                    .outputQuality(compressionQuality)
-                    .outputFormat(getOutputFormat(file.getContentType()))
-                    .toOutputStream(outputStream);
-
+            originalImage = readImage(file);
         } catch (Exception e) {
             System.err.println("Compression failed, saving original: " + e.getMessage());
-            // Fallback: save original if compression fails
+            // Fallback: save original if it cannot be decoded
             file.getInputStream().transferTo(outputStream);
+            return;
+        }
+
+        if (originalImage == null) {
+            // Not a valid image, save as-is
+            file.getInputStream().transferTo(outputStream);
+            return;
+        }
+
+        // Calculate new dimensions if image is too large
+        int targetWidth = Math.min(originalImage.getWidth(), maxWidth);
+        int targetHeight = Math.min(originalImage.getHeight(), maxHeight);
+
+        // Compress and resize. Output may already be on its way to S3, so a failure here is not retried with the original
+        Thumbnails.of(originalImage)
+                .size(targetWidth, targetHeight)
+                .keepAspectRatio(true)
+                .outputQuality(compressionQuality)
+                .outputFormat(getOutputFormat(file.getContentType()))
+                .toOutputStream(outputStream);
+    }
+
+    /**
+     * Decode an image for resizing. Sources much larger than the target size are decoded with
+     * subsampling (down to about twice the target), so a huge photo never sits in the heap at full resolution.
+     */
+    private BufferedImage readImage(MultipartFile file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.getInputStream())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                double scale = Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+                int subsampling = (int) (1 / (2 * scale));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling >= 2) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
         }
     }
 
@@ -0,0 +1,410 @@
+package com.crackersbazaar.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stock ledger for flash sales. Checkout takes units from a per-product CAS counter
+ * instead of locking the products row; each order records its sold units as rows in
+ * stock_ledger_deltas inside its own transaction, and a background flusher folds those rows into
+ * products.stock_quantity and deletes them in one transaction. Counters are loaded lazily as
+ * flushed stock plus unflushed deltas, so a crash between an order and the next flush loses nothing.
+ * Assumes a single application instance owns checkout for the ledger's products.
+ */
+@Component
+public class StockReservationLedger {
+
+    private static final String RECORD_DELTA_SQL =
+            "INSERT INTO stock_ledger_deltas (product_id, delta, created_at) VALUES (?, ?, ?)";
+
+    private static final String PENDING_DELTAS_SQL =
+            "SELECT id, product_id, delta FROM stock_ledger_deltas ORDER BY id LIMIT ?";
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private static final String DELETE_DELTA_SQL = "DELETE FROM stock_ledger_deltas WHERE id = ?";
+
+    // One statement, so the stock and the deltas are read from the same snapshot even while a flush commits
+    private static final String AVAILABLE_SQL =
+            "SELECT p.stock_quantity + COALESCE((SELECT SUM(d.delta) FROM stock_ledger_deltas d " +
+            "WHERE d.product_id = p.id), 0) FROM products p WHERE p.id = ?";
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.stock.ledger.reservation-ttl-seconds:600}")
+    private long reservationTtlSeconds;
+
+    @Value("${app.stock.ledger.flush-batch-size:5000}")
+    private int flushBatchSize;
+
+    private TransactionTemplate flushTransaction;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hold {@code quantities} (product id -> units) for {@code userId} until the reservation expires
+     * or is used by an order. All or nothing: throws when any product is short.
+     */
+    public Reservation reserve(String userId, Map<String, Integer> quantities) {
+        if (!enabled) {
+            throw new RuntimeException("Stock reservations are not enabled");
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), userId, quantities,
+                LocalDateTime.now().plusSeconds(reservationTtlSeconds));
+        take(reservation.items);
+        reservations.put(reservation.id, reservation);
+        return reservation;
+    }
+
+    public void release(String reservationId, String userId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.userId.equals(userId)) {
+            throw new RuntimeException("Stock reservation not found with id: " + reservationId);
+        }
+        if (reservations.remove(reservationId, reservation)) {
+            giveBack(reservation.items);
+            released.incrementAndGet();
+        }
+    }
+
+    /**
+     * Take the stock for an order inside its transaction: either by claiming the buyer's reservation
+     * or, without one, by reserving on the spot. The sold units are written as delta rows in the same
+     * transaction; on rollback they vanish with it, a claimed reservation is handed back and an
+     * on-the-spot one is released.
+     */
+    public void takeForOrder(String userId, String reservationId, Map<String, Integer> quantities) {
+        Reservation reservation;
+        if (reservationId != null) {
+            reservation = claim(reservationId, userId, quantities);
+        } else {
+            reservation = new Reservation(null, userId, quantities, null);
+            take(reservation.items);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                recordDeltas(reservation);
+            } catch (RuntimeException e) {
+                giveBack(reservation.items);
+                throw e;
+            }
+            committed.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed.incrementAndGet();
+                } else if (reservation.id != null && !reservation.isExpired()) {
+                    reservations.put(reservation.id, reservation);
+                } else {
+                    giveBack(reservation.items);
+                }
+            }
+        });
+        recordDeltas(reservation);
+    }
+
+    /**
+     * Apply a stock change that was written straight to the database (restock, manual edit)
+     * to the in-memory counter once the surrounding transaction commits.
+     */
+    public void adjustAfterCommit(String productId, long delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        runAfterCommit(() -> {
+            Slot slot = slots.get(productId);
+            if (slot != null) {
+                slot.available.addAndGet(delta);
+            }
+        });
+    }
+
+    public void evictAfterCommit(String productId) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> slots.remove(productId));
+    }
+
+    /**
+     * Fold recorded deltas into products.stock_quantity: per product net units in one JDBC batch, and
+     * the applied delta rows deleted in the same transaction. A failed batch leaves the rows for the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int consumed;
+            do {
+                Map<String, Long> applied = new TreeMap<>();
+                consumed = flushTransaction.execute(status -> flushBatch(applied));
+                if (consumed > 0) {
+                    flushes.incrementAndGet();
+                    flushedRows.addAndGet(applied.size());
+                    applied.keySet().forEach(productCache::evict);
+                    catalogVersion.bumpAfterCommit();
+                }
+            } while (consumed == flushBatchSize);
+        } catch (DataAccessException e) {
+            flushFailures.incrementAndGet();
+            System.err.println("Stock ledger flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    // Folds up to one batch of delta rows into {@code deltas} (net units per product, in product id
+    // order, the lock order for products rows) and the database; returns the number of rows consumed
+    private int flushBatch(Map<String, Long> deltas) {
+        List<Long> ids = new ArrayList<>();
+        jdbcTemplate.query(PENDING_DELTAS_SQL, rs -> {
+            ids.add(rs.getLong("id"));
+            deltas.merge(rs.getString("product_id"), rs.getLong("delta"), Long::sum);
+        }, flushBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[]{delta, now, productId});
+            }
+        });
+        jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+        jdbcTemplate.batchUpdate(DELETE_DELTA_SQL, ids.stream().map(id -> new Object[]{id}).toList());
+        return ids.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.ledger.reclaim-interval-ms:5000}")
+    public void reclaimExpired() {
+        if (!enabled) {
+            return;
+        }
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.isExpired() && reservations.remove(reservation.id, reservation)) {
+                giveBack(reservation.items);
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    // Open reservations are not persisted: dropping them on shutdown simply returns their units
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        long pending = enabled
+                ? jdbcTemplate.queryForObject("SELECT COALESCE(SUM(delta), 0) FROM stock_ledger_deltas", Long.class)
+                : 0L;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("trackedProducts", slots.size());
+        stats.put("activeReservations", reservations.size());
+        stats.put("granted", granted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("committed", committed.get());
+        stats.put("released", released.get());
+        stats.put("expired", expired.get());
+        stats.put("pendingUnits", pending);
+        stats.put("flushes", flushes.get());
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("flushFailures", flushFailures.get());
+        return stats;
+    }
+
+    private Reservation claim(String reservationId, String userId, Map<String, Integer> quantities) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || reservation.isExpired() || !reservation.userId.equals(userId)) {
+            throw new RuntimeException("Stock reservation not found or expired: " + reservationId);
+        }
+        if (!reservation.items.equals(new TreeMap<>(quantities))) {
+            throw new RuntimeException("Order items do not match stock reservation: " + reservationId);
+        }
+        if (!reservations.remove(reservationId, reservation)) {
+            throw new RuntimeException("Stock reservation not found or expired: " + reservationId);
+        }
+        return reservation;
+    }
+
+    // Take every product's units in id order; undo the ones already taken if any product is short
+    private void take(Map<String, Integer> items) {
+        List<Map.Entry<String, Integer>> taken = new ArrayList<>(items.size());
+        for (Map.Entry<String, Integer> item : items.entrySet()) {
+            if (!slot(item.getKey()).tryTake(item.getValue())) {
+                for (Map.Entry<String, Integer> undo : taken) {
+                    slots.get(undo.getKey()).available.addAndGet(undo.getValue());
+                }
+                rejected.incrementAndGet();
+                throw new RuntimeException("Insufficient stock for product: " + item.getKey() +
+                        ". Requested: " + item.getValue());
+            }
+            taken.add(item);
+        }
+        granted.incrementAndGet();
+    }
+
+    private void giveBack(Map<String, Integer> items) {
+        items.forEach((productId, quantity) -> {
+            Slot slot = slots.get(productId);
+            if (slot != null) {
+                slot.available.addAndGet(quantity);
+            }
+        });
+    }
+
+    // Sold units as negative deltas, written by the caller's transaction
+    private void recordDeltas(Reservation reservation) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(reservation.items.size());
+        reservation.items.forEach((productId, quantity) -> rows.add(new Object[]{productId, -quantity, now}));
+        jdbcTemplate.batchUpdate(RECORD_DELTA_SQL, rows);
+    }
+
+    private Slot slot(String productId) {
+        Slot slot = slots.get(productId);
+        if (slot != null) {
+            return slot;
+        }
+        Long available = jdbcTemplate.query(AVAILABLE_SQL, rs -> rs.next() ? rs.getLong(1) : null, productId);
+        if (available == null) {
+            throw new RuntimeException("Product not found with id: " + productId);
+        }
+        Slot loaded = new Slot(available);
+        Slot existing = slots.putIfAbsent(productId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Slot {
+        // Units that can still be reserved: database stock minus unflushed sales and open holds
+        private final AtomicLong available;
+
+        Slot(long available) {
+            this.available = new AtomicLong(available);
+        }
+
+        boolean tryTake(int quantity) {
+            while (true) {
+                long current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Units held for one buyer until {@code expiresAt}. Serialized as-is by the reservation endpoint.
+     */
+    public static class Reservation {
+        private final String id;
+        private final String userId;
+        private final Map<String, Integer> items;
+        private final LocalDateTime expiresAt;
+
+        Reservation(String id, String userId, Map<String, Integer> items, LocalDateTime expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.items = Collections.unmodifiableMap(new TreeMap<>(items));
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+        }
+
+        // Getters
+        public String getId() {
+            return id;
+        }
+
+        public Map<String, Integer> getItems() {
+            return items;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
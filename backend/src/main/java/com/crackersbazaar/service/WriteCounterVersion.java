@@ -0,0 +1,45 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.ResourceVersion;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamp of a listing for conditional GETs, kept as an in-memory write counter.
+ * Every committed write that can change the listing bumps the counter, so revalidating costs no query.
+ * The token carries the startup time, so ETags issued before a restart never match.
+ * Assumes a single application instance.
+ */
+public abstract class WriteCounterVersion {
+
+    private final String name;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong counter = new AtomicLong();
+
+    protected WriteCounterVersion(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Move the version on once the surrounding transaction commits, so a listing read after the
+     * bump always sees the write.
+     */
+    public void bumpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.incrementAndGet();
+                }
+            });
+        } else {
+            counter.incrementAndGet();
+        }
+    }
+
+    public ResourceVersion current() {
+        return new ResourceVersion(null, name + ":" + epoch + ":" + counter.get());
+    }
+}
@@ -0,0 +1,50 @@
+package com.crackersbazaar.util;
+
+import com.crackersbazaar.dto.ResourceVersion;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ETag handling for read endpoints.
+ * The ETag is derived from a {@link ResourceVersion} and the request URI and parameters,
+ * so it is computed without loading or serializing the response body.
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {}
+
+    /**
+     * Returns true when the client's copy is still current. A 304 has then been prepared and the
+     * handler should return null. Otherwise the ETag header is set and the handler continues with
+     * the full body.
+     *
+     * No Last-Modified is sent: it has one-second precision, so an If-Modified-Since match could
+     * hide a second write made in the same second. The modification time still feeds the ETag.
+     */
+    public static boolean isNotModified(WebRequest request, ResourceVersion version) {
+        if (version == null) {
+            return false;
+        }
+        // Let clients store the response but revalidate it on every use
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader("Cache-Control", "no-cache");
+        }
+        return request.checkNotModified(etag(request, version));
+    }
+
+    private static String etag(WebRequest request, ResourceVersion version) {
+        StringBuilder key = new StringBuilder()
+                .append(request.getDescription(false))
+                .append('|').append(version.getToken())
+                .append('|').append(version.getLastModified());
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        parameters.forEach((name, values) -> key.append('|').append(name).append('=').append(Arrays.toString(values)));
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
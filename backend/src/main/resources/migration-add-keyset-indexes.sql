@@ -0,0 +1,10 @@
+-- Migration script to add the composite indexes used by keyset (cursor) listings
+-- Listings seek on (created_at, id) instead of OFFSET, so each filter needs its
+-- equality columns followed by (created_at, id)
+
+CREATE INDEX idx_products_created_at_id ON products(created_at, id);
+CREATE INDEX idx_products_category_active_created ON products(category, is_active, created_at, id);
+CREATE INDEX idx_products_brand_active_created ON products(brand, is_active, created_at, id);
+CREATE INDEX idx_products_manufacturer_created ON products(manufacturer_id, created_at, id);
+
+CREATE INDEX idx_orders_user_created ON orders(user_id, created_at, id);
@@ -0,0 +1,26 @@
+-- Migration script to add the manufacturer_orders inbox table
+-- One row per (manufacturer, order) with the manufacturer's share of the order, so
+-- manufacturer order listings and counts no longer join orders, order_items and products
+
+CREATE TABLE IF NOT EXISTS manufacturer_orders (
+    id VARCHAR(36) PRIMARY KEY DEFAULT (UUID()),
+    manufacturer_id VARCHAR(36) NOT NULL,
+    order_id VARCHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    manufacturer_subtotal DECIMAL(10,2) NOT NULL DEFAULT 0.00,
+    created_at TIMESTAMP NOT NULL,
+    UNIQUE KEY uk_manufacturer_orders_manufacturer_order (manufacturer_id, order_id),
+    FOREIGN KEY (manufacturer_id) REFERENCES manufacturers(id) ON DELETE CASCADE,
+    FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_manufacturer_orders_inbox ON manufacturer_orders(manufacturer_id, created_at, order_id);
+CREATE INDEX idx_manufacturer_orders_order_id ON manufacturer_orders(order_id);
+
+-- Backfill from existing orders
+INSERT INTO manufacturer_orders (id, manufacturer_id, order_id, status, manufacturer_subtotal, created_at)
+SELECT UUID(), p.manufacturer_id, o.id, o.status, SUM(oi.total_price), o.created_at
+FROM orders o
+JOIN order_items oi ON oi.order_id = o.id
+JOIN products p ON p.id = oi.product_id
+GROUP BY p.manufacturer_id, o.id, o.status, o.created_at;
@@ -0,0 +1,5 @@
+-- Migration script to add the optimistic lock version column to manufacturers
+-- Every manufacturer write bumps it, so manufacturer and product ETags change
+-- even when two writes land in the same second of updated_at
+
+ALTER TABLE manufacturers ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
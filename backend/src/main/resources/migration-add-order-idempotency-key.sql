@@ -0,0 +1,7 @@
+-- Migration script to add idempotency keys to orders
+-- A retried submission with the same key returns the existing order instead of
+-- creating a duplicate; NULL keys (orders placed without one) are not constrained
+
+ALTER TABLE orders ADD COLUMN idempotency_key VARCHAR(100);
+
+ALTER TABLE orders ADD UNIQUE KEY uk_orders_user_idempotency_key (user_id, idempotency_key);
@@ -0,0 +1,48 @@
+-- Migration script to add the order_rollups table
+-- Order counts and amounts per user, manufacturer, creation day and status, kept up to date
+-- by the application so the order stats endpoints no longer aggregate the order history
+
+CREATE TABLE IF NOT EXISTS order_rollups (
+    scope VARCHAR(20) NOT NULL,
+    scope_id VARCHAR(36) NOT NULL,
+    shard INT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    delivered_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (scope, scope_id, shard)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill from existing orders into shard 0
+INSERT INTO order_rollups (scope, scope_id, shard, order_count, total_amount, delivered_count, delivered_amount)
+SELECT 'USER', user_id, 0, COUNT(*),
+       SUM(CASE WHEN status <> 'CANCELLED' THEN total ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN total ELSE 0 END)
+FROM orders
+GROUP BY user_id;
+
+INSERT INTO order_rollups (scope, scope_id, shard, order_count, total_amount, delivered_count, delivered_amount)
+SELECT 'DAY', DATE_FORMAT(created_at, '%Y-%m-%d'), 0, COUNT(*),
+       SUM(CASE WHEN status <> 'CANCELLED' THEN total ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN total ELSE 0 END)
+FROM orders
+GROUP BY DATE_FORMAT(created_at, '%Y-%m-%d');
+
+INSERT INTO order_rollups (scope, scope_id, shard, order_count, total_amount, delivered_count, delivered_amount)
+SELECT 'STATUS', status, 0, COUNT(*),
+       SUM(CASE WHEN status <> 'CANCELLED' THEN total ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN total ELSE 0 END)
+FROM orders
+GROUP BY status;
+
+-- Manufacturer amounts are the manufacturer's own lines, taken from the manufacturer_orders inbox
+INSERT INTO order_rollups (scope, scope_id, shard, order_count, total_amount, delivered_count, delivered_amount)
+SELECT 'MANUFACTURER', manufacturer_id, 0, COUNT(*),
+       SUM(CASE WHEN status <> 'CANCELLED' THEN manufacturer_subtotal ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'DELIVERED' THEN manufacturer_subtotal ELSE 0 END)
+FROM manufacturer_orders
+GROUP BY manufacturer_id;
@@ -0,0 +1,16 @@
+-- Migration script to add the orders_archive table
+-- Delivered, cancelled and refunded orders past app.orders.archive.after-days are moved here by
+-- the archival job and deleted from orders, order_items and manufacturer_orders
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    order_number VARCHAR(255) NOT NULL,
+    user_id VARCHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    payload JSON NOT NULL,
+    UNIQUE KEY uk_orders_archive_order_number (order_number),
+    KEY idx_orders_archive_user_created (user_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,11 @@
+-- Migration script to add the stock_ledger_deltas table
+-- Units sold through the stock reservation ledger (app.stock.ledger.enabled) are recorded here in the
+-- order transaction, so they survive a crash until the flusher folds them into products.stock_quantity
+
+CREATE TABLE IF NOT EXISTS stock_ledger_deltas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id VARCHAR(36) NOT NULL,
+    delta INT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    KEY idx_stock_ledger_deltas_product (product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
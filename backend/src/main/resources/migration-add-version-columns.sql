@@ -0,0 +1,7 @@
+-- Migration script to add optimistic lock version columns
+-- Product and Order updates check and bump this column, so concurrent
+-- read-modify-write updates conflict instead of overwriting each other
+
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
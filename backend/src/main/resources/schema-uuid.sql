@@ -5,6 +5,10 @@
 DROP TABLE IF EXISTS audit_logs;
 DROP TABLE IF EXISTS geofencing_rules;
 DROP TABLE IF EXISTS product_compliance_tags;
+DROP TABLE IF EXISTS stock_ledger_deltas;
+DROP TABLE IF EXISTS order_rollups;
+DROP TABLE IF EXISTS orders_archive;
+DROP TABLE IF EXISTS manufacturer_orders;
 DROP TABLE IF EXISTS order_items;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS product_images;
@@ -58,6 +62,7 @@ CREATE TABLE manufacturers (
     user_id VARCHAR(36) UNIQUE NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (verified_by) REFERENCES users(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -90,6 +95,7 @@ CREATE TABLE products (
     manufacturer_id VARCHAR(36) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (manufacturer_id) REFERENCES manufacturers(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -129,6 +135,7 @@ CREATE TABLE orders (
     payment_status VARCHAR(20) DEFAULT 'PENDING',
     payment_transaction_id VARCHAR(100),
     notes TEXT,
+    idempotency_key VARCHAR(100),
     tracking_number VARCHAR(100),
     shipped_at TIMESTAMP NULL,
     delivered_at TIMESTAMP NULL,
@@ -136,6 +143,8 @@ CREATE TABLE orders (
     cancellation_reason TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_orders_user_idempotency_key (user_id, idempotency_key),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -156,6 +165,57 @@ CREATE TABLE order_items (
     FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Create manufacturer_orders table: denormalized manufacturer inbox, one row per (manufacturer, order)
+CREATE TABLE manufacturer_orders (
+    id VARCHAR(36) PRIMARY KEY DEFAULT (UUID()),
+    manufacturer_id VARCHAR(36) NOT NULL,
+    order_id VARCHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    manufacturer_subtotal DECIMAL(10,2) NOT NULL DEFAULT 0.00,
+    created_at TIMESTAMP NOT NULL,
+    UNIQUE KEY uk_manufacturer_orders_manufacturer_order (manufacturer_id, order_id),
+    FOREIGN KEY (manufacturer_id) REFERENCES manufacturers(id) ON DELETE CASCADE,
+    FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create orders_archive table: finished orders moved out of the live tables, each stored as its
+-- full order document (order, items, buyer) in payload
+CREATE TABLE orders_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    order_number VARCHAR(255) NOT NULL,
+    user_id VARCHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    payload JSON NOT NULL,
+    UNIQUE KEY uk_orders_archive_order_number (order_number),
+    KEY idx_orders_archive_user_created (user_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create order_rollups table: order aggregates per scope (USER, MANUFACTURER, DAY, STATUS),
+-- each split over a few shard rows that are summed on read
+CREATE TABLE order_rollups (
+    scope VARCHAR(20) NOT NULL,
+    scope_id VARCHAR(36) NOT NULL,
+    shard INT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    delivered_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (scope, scope_id, shard)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create stock_ledger_deltas table: units sold through the stock reservation ledger, written in the
+-- order transaction and folded into products.stock_quantity (then deleted) by the ledger flusher
+CREATE TABLE stock_ledger_deltas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id VARCHAR(36) NOT NULL,
+    delta INT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    KEY idx_stock_ledger_deltas_product (product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Create product_compliance_tags table
 -- tag_type values: 'GREEN_CRACKER', 'HAZARD_CLASS', etc.
 CREATE TABLE product_compliance_tags (
@@ -220,6 +280,11 @@ CREATE INDEX idx_products_sku ON products(sku);
 CREATE INDEX idx_products_active ON products(is_active);
 CREATE INDEX idx_products_featured ON products(is_featured);
 CREATE INDEX idx_products_manufacturer_id ON products(manufacturer_id);
+-- Keyset (cursor) listings seek on (created_at, id)
+CREATE INDEX idx_products_created_at_id ON products(created_at, id);
+CREATE INDEX idx_products_category_active_created ON products(category, is_active, created_at, id);
+CREATE INDEX idx_products_brand_active_created ON products(brand, is_active, created_at, id);
+CREATE INDEX idx_products_manufacturer_created ON products(manufacturer_id, created_at, id);
 
 CREATE INDEX idx_product_images_product_id ON product_images(product_id);
 
@@ -227,10 +292,15 @@ CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_order_number ON orders(order_number);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_created_at ON orders(created_at);
+CREATE INDEX idx_orders_user_created ON orders(user_id, created_at, id);
 
 CREATE INDEX idx_order_items_order_id ON order_items(order_id);
 CREATE INDEX idx_order_items_product_id ON order_items(product_id);
 
+-- Covering index for the manufacturer inbox: page of order ids by created_at, and the count
+CREATE INDEX idx_manufacturer_orders_inbox ON manufacturer_orders(manufacturer_id, created_at, order_id);
+CREATE INDEX idx_manufacturer_orders_order_id ON manufacturer_orders(order_id);
+
 CREATE INDEX idx_product_compliance_tags_product_id ON product_compliance_tags(product_id);
 CREATE INDEX idx_product_compliance_tags_tag_type ON product_compliance_tags(tag_type);
 
@@ -0,0 +1,69 @@
+package com.crackersbazaar;
+
+import com.crackersbazaar.dto.OrderItemRequest;
+import com.crackersbazaar.dto.OrderRequest;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.entity.Role;
+import com.crackersbazaar.entity.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builders for the entities integration tests need. Ids are random so tests sharing one
+ * application context (and one database) never collide.
+ */
+public final class TestData {
+
+    private TestData() {}
+
+    public static Manufacturer manufacturer() {
+        Manufacturer manufacturer = new Manufacturer();
+        manufacturer.setId(UUID.randomUUID().toString());
+        manufacturer.setCompanyName("Sivakasi Fireworks");
+        manufacturer.setContactPerson("Test Contact");
+        manufacturer.setEmail(manufacturer.getId() + "@example.com");
+        manufacturer.setPhoneNumber("9876543210");
+        manufacturer.setAddress("1 Factory Road");
+        manufacturer.setCity("Sivakasi");
+        manufacturer.setState("Tamil Nadu");
+        manufacturer.setPincode("626123");
+        manufacturer.setCountry("India");
+        return manufacturer;
+    }
+
+    public static Product product(Manufacturer manufacturer, String category, int stockQuantity) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID().toString());
+        product.setName("Flower Pot " + product.getId().substring(0, 8));
+        product.setCategory(category);
+        product.setPrice(new BigDecimal("100.00"));
+        product.setStockQuantity(stockQuantity);
+        product.setSku("SKU-" + product.getId());
+        product.setManufacturer(manufacturer);
+        return product;
+    }
+
+    public static User retailer() {
+        String id = UUID.randomUUID().toString();
+        User user = new User("retailer-" + id, id + "@example.com", "secret123", "Test", "Retailer", Role.RETAILER);
+        user.setId(id);
+        return user;
+    }
+
+    public static OrderRequest orderRequest(List<OrderItemRequest> items) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(items);
+        request.setShippingAddress("12 Market Street");
+        request.setShippingCity("Chennai");
+        request.setShippingState("Tamil Nadu");
+        request.setShippingPincode("600001");
+        request.setShippingCountry("India");
+        request.setContactEmail("buyer@example.com");
+        request.setContactPhone("9876543210");
+        request.setPaymentMethod("COD");
+        return request;
+    }
+}
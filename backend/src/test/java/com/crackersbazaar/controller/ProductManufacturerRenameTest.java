@@ -0,0 +1,87 @@
+package com.crackersbazaar.controller;
+
+import com.crackersbazaar.TestData;
+import com.crackersbazaar.dto.ManufacturerRequest;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.repository.ProductRepository;
+import com.crackersbazaar.service.ManufacturerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Product responses embed the manufacturer's name, are cached, and carry an ETag that includes the
+ * manufacturer's row version: renaming the manufacturer must change both the ETag and the cached body,
+ * so a client revalidating its copy gets the new name rather than a 304 or the old body under a new tag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductManufacturerRenameTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ManufacturerService manufacturerService;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void renamingManufacturerRefreshesCachedProduct() throws Exception {
+        Manufacturer manufacturer = manufacturerRepository.save(TestData.manufacturer());
+        Product product = productRepository.save(TestData.product(manufacturer, "Rockets", 10));
+
+        // Served from the database once, then from the product cache
+        MvcResult first = mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.manufacturerName").value("Sivakasi Fireworks"))
+                .andReturn();
+        mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.manufacturerName").value("Sivakasi Fireworks"));
+        String oldETag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(oldETag);
+
+        manufacturerService.updateManufacturer(manufacturer.getId(), renameRequest(manufacturer, "Standard Fireworks"));
+
+        MvcResult renamed = mockMvc.perform(get("/api/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, oldETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.manufacturerName").value("Standard Fireworks"))
+                .andReturn();
+        assertNotEquals(oldETag, renamed.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    // Every required field as stored, with a new company name
+    private ManufacturerRequest renameRequest(Manufacturer manufacturer, String companyName) {
+        ManufacturerRequest request = new ManufacturerRequest();
+        request.setCompanyName(companyName);
+        request.setContactPerson(manufacturer.getContactPerson());
+        request.setEmail(manufacturer.getEmail());
+        request.setPhoneNumber(manufacturer.getPhoneNumber());
+        request.setAddress(manufacturer.getAddress());
+        request.setCity(manufacturer.getCity());
+        request.setState(manufacturer.getState());
+        request.setPincode(manufacturer.getPincode());
+        request.setCountry(manufacturer.getCountry());
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.crackersbazaar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageCacheTest {
+
+    private static final byte[] IMAGE = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    @TempDir
+    Path diskDir;
+
+    private ImageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ImageCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "memoryMaxBytes", 1024L);
+        ReflectionTestUtils.setField(cache, "memoryMaxEntryBytes", 1024L);
+        ReflectionTestUtils.setField(cache, "diskDir", diskDir.toString());
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", 1024L * 1024);
+        cache.init();
+    }
+
+    @Test
+    void fillRacingWithInvalidationOfSameKeyIsDropped() throws IOException {
+        long generation = cache.generation();
+        InputStream body = cache.fillWhileReading("a.jpg", "e1", IMAGE.length,
+                new ByteArrayInputStream(IMAGE), generation);
+        cache.invalidate("a.jpg");
+        drain(body);
+
+        assertNull(cache.lookup("a.jpg"));
+    }
+
+    @Test
+    void putRacingWithInvalidationOfSameKeyIsDropped() {
+        long generation = cache.generation();
+        cache.invalidate("a.jpg");
+        cache.put("a.jpg", IMAGE, "e1", generation);
+
+        assertNull(cache.lookup("a.jpg"));
+    }
+
+    @Test
+    void invalidationOfOtherKeyDoesNotBlockFill() throws IOException {
+        long generation = cache.generation();
+        InputStream body = cache.fillWhileReading("a.jpg", "e1", IMAGE.length,
+                new ByteArrayInputStream(IMAGE), generation);
+        cache.invalidate("b.jpg");
+        drain(body);
+
+        ImageCache.Entry entry = cache.lookup("a.jpg");
+        assertNotNull(entry);
+        assertArrayEquals(IMAGE, entry.getBytes());
+    }
+
+    @Test
+    void fillStartedAfterInvalidationIsCached() {
+        cache.invalidate("a.jpg");
+        cache.put("a.jpg", IMAGE, "e1", cache.generation());
+
+        assertNotNull(cache.lookup("a.jpg"));
+    }
+
+    @Test
+    void putRacingWithClearIsDropped() {
+        long generation = cache.generation();
+        cache.clear();
+        cache.put("a.jpg", IMAGE, "e1", generation);
+
+        assertNull(cache.lookup("a.jpg"));
+    }
+
+    private void drain(InputStream body) throws IOException {
+        try (body) {
+            body.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.crackersbazaar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 250_000;
+
+    private OrderNumberGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = generator(7);
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasePerThread() throws Exception {
+        long[][] issued = new long[THREADS][IDS_PER_THREAD];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                long[] ids = issued[t];
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                        if (i > 0) {
+                            assertTrue(ids[i] > ids[i - 1], "ids went back within one thread");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(issued[t], 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "duplicate id " + all[i]);
+        }
+        assertTrue(all[0] > 0);
+    }
+
+    @Test
+    void idsKeepIncreasingWhenTheClockIsBehind() {
+        // Last issued id a minute ahead of the clock, as after the clock is stepped back
+        long ahead = (System.currentTimeMillis() + 60_000 - generatorEpoch()) << 12;
+        ReflectionTestUtils.setField(generator, "lastState", new AtomicLong(ahead));
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nodeIdIsEncodedSoNodesNeverCollide() {
+        OrderNumberGenerator other = generator(8);
+
+        long id = generator.nextId();
+        long otherId = other.nextId();
+
+        assertEquals(7, (id >>> 12) & 1023);
+        assertEquals(8, (otherId >>> 12) & 1023);
+        assertNotEquals(id, otherId);
+    }
+
+    @Test
+    void orderNumbersArePrefixedIds() {
+        String first = generator.nextOrderNumber();
+        String second = generator.nextOrderNumber();
+
+        assertTrue(first.startsWith(OrderNumberGenerator.PREFIX));
+        assertTrue(Long.parseLong(second.substring(3)) > Long.parseLong(first.substring(3)));
+    }
+
+    private OrderNumberGenerator generator(long nodeId) {
+        OrderNumberGenerator generator = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", nodeId);
+        generator.init();
+        return generator;
+    }
+
+    private long generatorEpoch() {
+        return (Long) ReflectionTestUtils.getField(OrderNumberGenerator.class, "EPOCH");
+    }
+}
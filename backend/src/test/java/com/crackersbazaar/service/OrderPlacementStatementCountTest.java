@@ -0,0 +1,115 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.TestData;
+import com.crackersbazaar.dto.OrderItemRequest;
+import com.crackersbazaar.dto.OrderResponse;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.entity.User;
+import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.repository.ProductRepository;
+import com.crackersbazaar.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Placing an order must cost the same number of Hibernate statements however many lines (and
+ * manufacturers) it has: the buyer, the products with their manufacturers joined, one image batch,
+ * and one insert batch each for orders, manufacturer_orders and order_items. The stock decrement goes
+ * through JdbcTemplate and must be a single batch with one row per product, counted on a spy.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderPlacementStatementCountTest {
+
+    private static final int STATEMENTS_PER_ORDER = 6;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orderPlacementIssuesBoundedStatements() {
+        User buyer = userRepository.save(TestData.retailer());
+
+        assertStatementsForOrder(buyer, 1);
+        assertStatementsForOrder(buyer, 20);
+    }
+
+    // An order with productsPerManufacturer lines from each of two manufacturers
+    private void assertStatementsForOrder(User buyer, int productsPerManufacturer) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int m = 0; m < 2; m++) {
+            Manufacturer manufacturer = manufacturerRepository.save(TestData.manufacturer());
+            for (int p = 0; p < productsPerManufacturer; p++) {
+                Product product = productRepository.save(TestData.product(manufacturer, "Rockets", 50));
+                items.add(new OrderItemRequest(product.getId(), 2));
+            }
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        clearInvocations(jdbcTemplate);
+
+        OrderResponse order = orderService.createOrder(TestData.orderRequest(items), buyer.getId());
+
+        assertEquals(items.size(), order.getOrderItems().size());
+        // order + its items + one manufacturer order per manufacturer
+        assertEquals(1 + items.size() + 2, statistics.getEntityInsertCount());
+        assertEquals(STATEMENTS_PER_ORDER, statistics.getPrepareStatementCount());
+
+        List<Invocation> stockWrites = stockWrites();
+        assertEquals(1, stockWrites.size(), "stock writes: " + stockWrites);
+        assertEquals("batchUpdate", stockWrites.get(0).getMethod().getName());
+        assertEquals(items.size(), ((List<?>) stockWrites.get(0).getRawArguments()[1]).size());
+    }
+
+    // Calls into JdbcTemplate that change products rows, counting only the public entry points
+    // (update(sql, args...) and batchUpdate(sql, rows)), not the overloads they delegate to
+    private List<Invocation> stockWrites() {
+        return mockingDetails(jdbcTemplate).getInvocations().stream()
+                .filter(invocation -> isEntryPoint(invocation.getMethod()))
+                .filter(invocation -> ((String) invocation.getRawArguments()[0]).startsWith("UPDATE products"))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isEntryPoint(Method method) {
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length != 2 || parameters[0] != String.class) {
+            return false;
+        }
+        return (method.getName().equals("update") && parameters[1] == Object[].class)
+                || (method.getName().equals("batchUpdate") && parameters[1] == List.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.TestData;
+import com.crackersbazaar.dto.OrderItemRequest;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.entity.User;
+import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.repository.ProductRepository;
+import com.crackersbazaar.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many buyers racing for the last units of one product: the guarded stock decrement must let
+ * exactly as many single-unit orders through as there were units, and never take stock below zero.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderStockConcurrencyTest {
+
+    private static final int STOCK = 25;
+    private static final int ORDERS = 500;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void parallelOrdersNeverOversell() throws Exception {
+        Manufacturer manufacturer = manufacturerRepository.save(TestData.manufacturer());
+        Product product = productRepository.save(TestData.product(manufacturer, "Rockets", STOCK));
+        User buyer = userRepository.save(TestData.retailer());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> orders = new ArrayList<>();
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                orders.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(TestData.orderRequest(List.of(new OrderItemRequest(product.getId(), 1))), buyer.getId());
+                        placed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> order : orders) {
+                order.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(STOCK, placed.get());
+        assertEquals(ORDERS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findStockQuantityById(product.getId()).orElseThrow());
+        assertEquals(STOCK, orderService.getOrdersByUserId(buyer.getId()).size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.dto.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCacheTest {
+
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+    }
+
+    @Test
+    void loadRacingWithEvictionOfSameProductIsNotCached() {
+        long generation = cache.generation();
+        cache.evict("p1");
+        cache.put(product("p1"), generation);
+
+        assertFalse(cache.getById("p1").isPresent());
+    }
+
+    @Test
+    void evictionOfOtherProductDoesNotBlockCaching() {
+        long generation = cache.generation();
+        cache.evict("p2");
+        cache.put(product("p1"), generation);
+
+        assertTrue(cache.getById("p1").isPresent());
+    }
+
+    @Test
+    void loadStartedAfterEvictionIsCached() {
+        cache.evict("p1");
+        long generation = cache.generation();
+        cache.put(product("p1"), generation);
+
+        assertTrue(cache.getById("p1").isPresent());
+    }
+
+    @Test
+    void loadRacingWithClearIsNotCached() {
+        long generation = cache.generation();
+        cache.clear();
+        cache.put(product("p1"), generation);
+
+        assertFalse(cache.getById("p1").isPresent());
+    }
+
+    @Test
+    void manufacturerEvictionDropsOnlyThatManufacturersProducts() {
+        cache.put(product("p1", "m1"), cache.generation());
+        cache.put(product("p2", "m1"), cache.generation());
+        cache.put(product("p3", "m2"), cache.generation());
+
+        cache.evictManufacturer("m1");
+
+        assertFalse(cache.getById("p1").isPresent());
+        assertFalse(cache.getBySku("SKU-p2").isPresent());
+        assertTrue(cache.getById("p3").isPresent());
+    }
+
+    @Test
+    void loadRacingWithManufacturerEvictionIsNotCached() {
+        long generation = cache.generation();
+        cache.evictManufacturer("m1");
+        cache.put(product("p1", "m1"), generation);
+        cache.put(product("p2", "m2"), generation);
+
+        assertFalse(cache.getById("p1").isPresent());
+        assertTrue(cache.getById("p2").isPresent());
+    }
+
+    private ProductResponse product(String id) {
+        return product(id, null);
+    }
+
+    private ProductResponse product(String id, String manufacturerId) {
+        ProductResponse response = new ProductResponse();
+        response.setId(id);
+        response.setSku("SKU-" + id);
+        response.setManufacturerId(manufacturerId);
+        return response;
+    }
+}
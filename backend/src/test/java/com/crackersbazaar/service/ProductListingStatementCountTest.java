@@ -0,0 +1,73 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.TestData;
+import com.crackersbazaar.dto.ProductResponse;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * A catalog page must cost a fixed number of statements however many products (and
+ * manufacturers, and images) it holds: the page query with its manufacturers joined,
+ * the count query and one batch for the image URLs.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductListingStatementCountTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void catalogPageIssuesBoundedStatements() {
+        String category = "category-" + UUID.randomUUID();
+        for (int m = 0; m < 4; m++) {
+            Manufacturer manufacturer = manufacturerRepository.save(TestData.manufacturer());
+            for (int p = 0; p < 5; p++) {
+                Product product = TestData.product(manufacturer, category, 10);
+                product.setImageUrls(List.of("/api/images?key=products/" + product.getId() + "/a.jpg",
+                        "/api/images?key=products/" + product.getId() + "/b.jpg"));
+                productRepository.save(product);
+            }
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ProductResponse> page = productService.getProductsByCategory(category, PageRequest.of(0, 10));
+
+        assertEquals(10, page.getContent().size());
+        assertEquals(20, page.getTotalElements());
+        page.getContent().forEach(product -> {
+            assertNotNull(product.getManufacturerName());
+            assertEquals(2, product.getImageUrls().size());
+        });
+        // page query (manufacturer joined) + count query + one image batch
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.crackersbazaar.service;
+
+import com.crackersbazaar.TestData;
+import com.crackersbazaar.entity.Manufacturer;
+import com.crackersbazaar.entity.Product;
+import com.crackersbazaar.repository.ManufacturerRepository;
+import com.crackersbazaar.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many buyers racing for one SKU through the ledger while flushes run alongside: the CAS counter must
+ * hand out exactly the units in stock, and folding the delta rows into products must land the stock on
+ * zero without ever taking it below.
+ */
+@SpringBootTest(properties = "app.stock.ledger.enabled=true")
+@ActiveProfiles("test")
+class StockReservationLedgerTest {
+
+    private static final int STOCK = 25;
+    private static final int ORDERS = 500;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private StockReservationLedger stockReservationLedger;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelTakesFlushToExactlyZero() throws Exception {
+        Manufacturer manufacturer = manufacturerRepository.save(TestData.manufacturer());
+        Product product = productRepository.save(TestData.product(manufacturer, "Sparklers", STOCK));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean racing = new AtomicBoolean(true);
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> takes = new ArrayList<>();
+        try {
+            // Flushes racing with the lazy slot load and the takes; stock must never dip below zero
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (racing.get()) {
+                    stockReservationLedger.flush();
+                    assertTrue(stockQuantity(product) >= 0, "stock went negative");
+                }
+                return null;
+            });
+            for (int i = 0; i < ORDERS; i++) {
+                String buyerId = "buyer-" + i;
+                takes.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        stockReservationLedger.takeForOrder(buyerId, null, Map.of(product.getId(), 1));
+                        taken.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> take : takes) {
+                take.get();
+            }
+            racing.set(false);
+            flusher.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        stockReservationLedger.flush();
+
+        assertEquals(STOCK, taken.get());
+        assertEquals(ORDERS - STOCK, rejected.get());
+        assertEquals(0, stockQuantity(product));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_ledger_deltas", Integer.class));
+    }
+
+    private int stockQuantity(Product product) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+}
@@ -0,0 +1,33 @@
+-- Tables the application reads and writes through JDBC only (no entity), for the H2 test database
+
+CREATE TABLE IF NOT EXISTS order_rollups (
+    scope VARCHAR(20) NOT NULL,
+    scope_id VARCHAR(36) NOT NULL,
+    shard INT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    delivered_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (scope, scope_id, shard)
+);
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    order_number VARCHAR(255) NOT NULL,
+    user_id VARCHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    payload CLOB NOT NULL,
+    CONSTRAINT uk_orders_archive_order_number UNIQUE (order_number)
+);
+
+CREATE TABLE IF NOT EXISTS stock_ledger_deltas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id VARCHAR(36) NOT NULL,
+    delta INT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_deltas_product ON stock_ledger_deltas (product_id);